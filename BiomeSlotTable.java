@@ -0,0 +1,81 @@
+import java.util.Arrays;
+
+// Maps biome ids to dense slot indices 0 to size() - 1, handed out in order of first appearance.
+// Lookups go through a small open-addressed table, so they stay constant-time however many biomes are in range.
+// Clearing only touches the entries in use, and the arrays only grow, so one table can be reused indefinitely.
+public class BiomeSlotTable {
+    private int size;
+    private int[] biomes = new int[8];
+    private int[] tablePositions = new int[8];
+    
+    // Slot + 1 at each position, with 0 meaning empty. Kept at most half full.
+    private int[] table = new int[16];
+    private int tableShift = 32 - 4;
+    
+    public int size() {
+        return size;
+    }
+    
+    public int getBiome(int slot) {
+        return biomes[slot];
+    }
+    
+    // Only the first size() entries are valid.
+    public int[] getBiomes() {
+        return biomes;
+    }
+    
+    public int getSlot(int biome) {
+        int mask = table.length - 1;
+        for (int position = getHomePosition(biome); ; position = (position + 1) & mask) {
+            int entry = table[position];
+            if (entry == 0) return -1;
+            if (biomes[entry - 1] == biome) return entry - 1;
+        }
+    }
+    
+    public int getOrAddSlot(int biome) {
+        int mask = table.length - 1;
+        int position = getHomePosition(biome);
+        for (; ; position = (position + 1) & mask) {
+            int entry = table[position];
+            if (entry == 0) break;
+            if (biomes[entry - 1] == biome) return entry - 1;
+        }
+        
+        if (size == biomes.length) {
+            biomes = Arrays.copyOf(biomes, size * 2);
+            tablePositions = Arrays.copyOf(tablePositions, size * 2);
+        }
+        int slot = size++;
+        biomes[slot] = biome;
+        table[position] = slot + 1;
+        tablePositions[slot] = position;
+        
+        if (size * 2 > table.length) rehash();
+        return slot;
+    }
+    
+    public void clear() {
+        for (int slot = 0; slot < size; slot++) {
+            table[tablePositions[slot]] = 0;
+        }
+        size = 0;
+    }
+    
+    private void rehash() {
+        table = new int[table.length * 2];
+        tableShift--;
+        int mask = table.length - 1;
+        for (int slot = 0; slot < size; slot++) {
+            int position = getHomePosition(biomes[slot]);
+            while (table[position] != 0) position = (position + 1) & mask;
+            table[position] = slot + 1;
+            tablePositions[slot] = position;
+        }
+    }
+    
+    private int getHomePosition(int biome) {
+        return (biome * 0x9E3779B9) >>> tableShift;
+    }
+}
@@ -0,0 +1,26 @@
+// Accumulates one point's blend weights along a run of consecutive columns on a single row.
+// Column k of the run sits at x = startX + k, and writes to weights[weightsIndex + k] and columnTotalWeights[columnIndex + k].
+interface BlendKernel {
+    
+    // Set to false to always use the scalar kernel.
+    String VECTOR_KERNEL_PROPERTY = "scatteredbiomeblender.vectorKernel";
+    
+    void accumulateRow(double[] weights, int weightsIndex, double[] columnTotalWeights, int columnIndex, int count,
+            double startX, double pointX, double dzSq, double blendRadiusSq);
+    
+    // Single-precision version, for coordinates relative to the chunk.
+    void accumulateRow(float[] weights, int weightsIndex, float[] columnTotalWeights, int columnIndex, int count,
+            float startX, float pointX, float dzSq, float blendRadiusSq);
+    
+    // Uses the Vector API kernel when jdk.incubator.vector is available at runtime, and the scalar one otherwise.
+    static BlendKernel loadPreferred() {
+        if (Boolean.parseBoolean(System.getProperty(VECTOR_KERNEL_PROPERTY, "true"))) {
+            try {
+                return (BlendKernel)Class.forName("VectorBlendKernel").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Not compiled in, or the module wasn't added. Fall through.
+            }
+        }
+        return new ScalarBlendKernel();
+    }
+}
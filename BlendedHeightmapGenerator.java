@@ -0,0 +1,72 @@
+import java.util.Arrays;
+
+// Blends per-biome terrain noise into a heightmap, on top of ScatteredBiomeBlender.
+// Biomes only carry weight near their own points, so each biome's noise is only evaluated in the columns where its weight isn't zero.
+// Counts how many evaluations that saved, against evaluating every biome in range for every column.
+// Holds its own blend result and counters, so use one per thread.
+public class BlendedHeightmapGenerator {
+    
+    private final ScatteredBiomeBlender blender;
+    private final NoiseGenerator[] biomeNoiseGenerators;
+    private final ChunkBlendResult blend = new ChunkBlendResult();
+    private long evaluatedNoiseCount, skippedNoiseCount;
+    
+    // The noise generator for each biome is found at its biome id.
+    public BlendedHeightmapGenerator(ScatteredBiomeBlender blender, NoiseGenerator[] biomeNoiseGenerators) {
+        this.blender = blender;
+        this.biomeNoiseGenerators = biomeNoiseGenerators;
+    }
+    
+    // Fills heightsOut, indexed z * chunkWidth + x.
+    public void getHeightsForChunk(long seed, int chunkBaseWorldX, int chunkBaseWorldZ,
+            ScatteredBiomeBlender.BiomeEvaluationCallback callback, double[] heightsOut) {
+        blender.getBlendForChunk(seed, chunkBaseWorldX, chunkBaseWorldZ, callback, blend);
+        getHeightsForChunk(blend, chunkBaseWorldX, chunkBaseWorldZ, heightsOut);
+    }
+    
+    // From a blend the caller already has for this chunk, e.g. because it uses the weights for something else too.
+    public void getHeightsForChunk(ChunkBlendResult chunkBlend, int chunkBaseWorldX, int chunkBaseWorldZ, double[] heightsOut) {
+        if (chunkBlend.getColumnCount() != blender.getChunkWidth() * blender.getChunkHeight()) {
+            throw new IllegalArgumentException("Blend result was not made for this generator's blender's chunk size");
+        }
+        int chunkWidth = blender.getChunkWidth();
+        int chunkHeight = blender.getChunkHeight();
+        int columnCount = chunkBlend.getColumnCount();
+        double[] weights = chunkBlend.getWeights();
+        Arrays.fill(heightsOut, 0, columnCount, 0.0);
+        
+        for (int slot = 0; slot < chunkBlend.getBiomeCount(); slot++) {
+            NoiseGenerator noiseGenerator = biomeNoiseGenerators[chunkBlend.getBiome(slot)];
+            int weightsOffset = slot * columnCount;
+            int evaluated = 0;
+            for (int zi = 0, i = 0; zi < chunkHeight; zi++) {
+                for (int xi = 0; xi < chunkWidth; xi++, i++) {
+                    double weight = weights[weightsOffset + i];
+                    if (weight == 0) continue;
+                    
+                    heightsOut[i] += weight * noiseGenerator.getNoise(chunkBaseWorldX + xi, chunkBaseWorldZ + zi);
+                    evaluated++;
+                }
+            }
+            evaluatedNoiseCount += evaluated;
+            skippedNoiseCount += columnCount - evaluated;
+        }
+    }
+    
+    public long getEvaluatedNoiseCount() {
+        return evaluatedNoiseCount;
+    }
+    
+    public long getSkippedNoiseCount() {
+        return skippedNoiseCount;
+    }
+    
+    public void resetNoiseCounts() {
+        evaluatedNoiseCount = skippedNoiseCount = 0;
+    }
+    
+    @FunctionalInterface
+    public static interface NoiseGenerator {
+        double getNoise(int x, int z);
+    }
+}
@@ -0,0 +1,81 @@
+import java.util.Arrays;
+
+// Caller-owned, reusable output for ScatteredBiomeBlender.
+// Holds the biomes in range of a chunk, and one row of column weights per biome,
+// packed into a single array as weights[slot * columnCount + column]. Biome to slot lookups are constant-time.
+// The arrays only grow, so reusing one instance stops allocating once it has warmed up.
+public class ChunkBlendResult {
+    private int columnCount;
+    private final BiomeSlotTable biomeSlots = new BiomeSlotTable();
+    private double[] weights = new double[0];
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    public int getBiomeCount() {
+        return biomeSlots.size();
+    }
+
+    public int getBiome(int slot) {
+        return biomeSlots.getBiome(slot);
+    }
+
+    // Only the first getBiomeCount() entries are valid.
+    public int[] getBiomes() {
+        return biomeSlots.getBiomes();
+    }
+
+    // Only the first getBiomeCount() * getColumnCount() entries are valid.
+    public double[] getWeights() {
+        return weights;
+    }
+
+    public double getWeight(int slot, int column) {
+        return weights[slot * columnCount + column];
+    }
+
+    // Returns -1 if the biome isn't in range of the chunk.
+    public int getSlotForBiome(int biome) {
+        return biomeSlots.getSlot(biome);
+    }
+
+    // Builds the equivalent linked representation, with the same entry order getBlendForChunk has always returned.
+    public LinkedBiomeWeightMap toLinkedBiomeWeightMap() {
+        int biomeCount = biomeSlots.size();
+        int[] biomes = biomeSlots.getBiomes();
+        LinkedBiomeWeightMap linkedBiomeMapStartEntry = null;
+        for (int slot = 0; slot < biomeCount; slot++) {
+            linkedBiomeMapStartEntry = new LinkedBiomeWeightMap(biomes[slot], linkedBiomeMapStartEntry);
+        }
+
+        // A single biome leaves its weights null, meaning 1.0 everywhere.
+        if (biomeCount > 1) {
+            int slot = biomeCount - 1;
+            for (LinkedBiomeWeightMap entry = linkedBiomeMapStartEntry; entry != null; entry = entry.getNext(), slot--) {
+                entry.setWeights(Arrays.copyOfRange(weights, slot * columnCount, (slot + 1) * columnCount));
+            }
+        }
+
+        return linkedBiomeMapStartEntry;
+    }
+
+    void reset(int columnCount) {
+        this.columnCount = columnCount;
+        biomeSlots.clear();
+    }
+
+    int getOrAddSlot(int biome) {
+        return biomeSlots.getOrAddSlot(biome);
+    }
+
+    // Makes room for one zeroed row of weights per biome added so far.
+    void clearWeights() {
+        int length = biomeSlots.size() * columnCount;
+        if (weights.length < length) {
+            weights = new double[length];
+        } else {
+            Arrays.fill(weights, 0, length, 0.0);
+        }
+    }
+}
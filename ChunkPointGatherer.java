@@ -1,53 +1,86 @@
+import java.util.ArrayList;
 import java.util.List;
 
 public class ChunkPointGatherer<TTag> {
 
-    private static final double CHUNK_RADIUS_RATIO = Math.sqrt(1.0 / 2.0);
-    
-    int halfChunkWidth;
+    int halfChunkWidth, halfChunkHeight;
+    double chunkCenterOffsetX, chunkCenterOffsetZ;
+    double halfChunkExtentX, halfChunkExtentZ;
     double maxPointContributionRadius;
     double maxPointContributionRadiusSq;
-    double radiusPlusHalfChunkWidth;
     UnfilteredPointGatherer<TTag> unfilteredPointGatherer;
+    UnfilteredPointGatherer.PointFilter chunkFilter = this::isInRange;
     
     public ChunkPointGatherer(double frequency, double maxPointContributionRadius, int chunkWidth) {
+        this(frequency, maxPointContributionRadius, chunkWidth, chunkWidth);
+    }
+    
+    // chunkWidth columns along x, by chunkHeight along z. Any positive sizes work.
+    public ChunkPointGatherer(double frequency, double maxPointContributionRadius, int chunkWidth, int chunkHeight) {
+        this(frequency, maxPointContributionRadius, chunkWidth, chunkHeight, LatticeJitter.DEFAULT);
+    }
+    
+    public ChunkPointGatherer(double frequency, double maxPointContributionRadius, int chunkWidth, int chunkHeight, LatticeJitter jitter) {
+        this(frequency, maxPointContributionRadius, chunkWidth, chunkHeight, jitter, true);
+    }
+    
+    // See UnfilteredPointGatherer for what not interning the search table means.
+    ChunkPointGatherer(double frequency, double maxPointContributionRadius, int chunkWidth, int chunkHeight, LatticeJitter jitter,
+            boolean internSearchTable) {
+        if (chunkWidth < 1 || chunkHeight < 1) {
+            throw new IllegalArgumentException("Chunk dimensions must be positive, were " + chunkWidth + " by " + chunkHeight);
+        }
         this.halfChunkWidth = chunkWidth / 2;
+        this.halfChunkHeight = chunkHeight / 2;
+        
+        // The columns span base to base + width - 1, so that's the rectangle points are checked against.
+        // Searches still start from the integer "center" below, which the actual center is this far from.
+        this.halfChunkExtentX = (chunkWidth - 1) * 0.5;
+        this.halfChunkExtentZ = (chunkHeight - 1) * 0.5;
+        this.chunkCenterOffsetX = halfChunkExtentX - halfChunkWidth;
+        this.chunkCenterOffsetZ = halfChunkExtentZ - halfChunkHeight;
+        
         this.maxPointContributionRadius = maxPointContributionRadius;
         this.maxPointContributionRadiusSq = maxPointContributionRadius * maxPointContributionRadius;
-        this.radiusPlusHalfChunkWidth = maxPointContributionRadius + halfChunkWidth;
+        
+        // From the integer center, the farthest column is at most half the chunk's diagonal away.
         unfilteredPointGatherer = new UnfilteredPointGatherer<TTag>(frequency,
-                maxPointContributionRadius + chunkWidth * CHUNK_RADIUS_RATIO);
+                maxPointContributionRadius + Math.hypot(chunkWidth, chunkHeight) * 0.5, jitter, internSearchTable);
     }
     
     public List<GatheredPoint<TTag>> getPointsFromChunkBase(long seed, int chunkBaseWorldX, int chunkBaseWorldZ) {
         // Technically, the true minimum is between coordinates. But tests showed it was more efficient to add before converting to doubles.
-        return getPointsFromChunkCenter(seed, chunkBaseWorldX + halfChunkWidth, chunkBaseWorldZ + halfChunkWidth);
+        return getPointsFromChunkCenter(seed, chunkBaseWorldX + halfChunkWidth, chunkBaseWorldZ + halfChunkHeight);
     }
     
     public List<GatheredPoint<TTag>> getPointsFromChunkCenter(long seed, int chunkCenterWorldX, int chunkCenterWorldZ) {
-        List<GatheredPoint<TTag>> worldPoints =
-                unfilteredPointGatherer.getPoints(seed, chunkCenterWorldX, chunkCenterWorldZ);
-        for (int i = 0; i < worldPoints.size(); i++) {
-            GatheredPoint<TTag> point = worldPoints.get(i);
-            
-            // Check if point contribution radius lies outside any coordinate in the chunk
-            double axisCheckValueX = Math.abs(point.getX() - chunkCenterWorldX) - halfChunkWidth;
-            double axisCheckValueZ = Math.abs(point.getZ() - chunkCenterWorldZ) - halfChunkWidth;
-            if (axisCheckValueX >= maxPointContributionRadius || axisCheckValueZ >= maxPointContributionRadius
-                    || (axisCheckValueX > 0 && axisCheckValueZ > 0
-                        && axisCheckValueX*axisCheckValueX + axisCheckValueZ*axisCheckValueZ >= maxPointContributionRadiusSq)) {
-                
-                // If so, remove it.
-                // Copy the last value to this value, and remove the last,
-                // to avoid shifting because order doesn't matter.
-                int lastIndex = worldPoints.size() - 1;
-                worldPoints.set(i, worldPoints.get(lastIndex));
-                worldPoints.remove(lastIndex);
-                i--;
-            }
-        }
-        
+        ArrayList<GatheredPoint<TTag>> worldPoints = new ArrayList<>();
+        gatherPointsFromChunkCenter(seed, chunkCenterWorldX, chunkCenterWorldZ, (double x, double z, int hash) ->
+                worldPoints.add(new GatheredPoint<TTag>(x, z, hash)));
         return worldPoints;
     }
     
+    public void gatherPointsFromChunkBase(long seed, int chunkBaseWorldX, int chunkBaseWorldZ, PointConsumer consumer) {
+        gatherPointsFromChunkCenter(seed, chunkBaseWorldX + halfChunkWidth, chunkBaseWorldZ + halfChunkHeight, consumer);
+    }
+    
+    // Only points which can contribute to some column in the chunk reach the consumer.
+    public void gatherPointsFromChunkCenter(long seed, int chunkCenterWorldX, int chunkCenterWorldZ, PointConsumer consumer) {
+        unfilteredPointGatherer.gatherPoints(seed, chunkCenterWorldX, chunkCenterWorldZ, chunkFilter, consumer);
+    }
+    
+    public boolean isInRangeOfChunkBase(double pointX, double pointZ, int chunkBaseWorldX, int chunkBaseWorldZ) {
+        return isInRange(pointX, pointZ, chunkBaseWorldX + halfChunkWidth, chunkBaseWorldZ + halfChunkHeight);
+    }
+    
+    private boolean isInRange(double pointX, double pointZ, double chunkCenterWorldX, double chunkCenterWorldZ) {
+        
+        // Check if point contribution radius lies outside any coordinate in the chunk
+        double axisCheckValueX = Math.abs(pointX - (chunkCenterWorldX + chunkCenterOffsetX)) - halfChunkExtentX;
+        double axisCheckValueZ = Math.abs(pointZ - (chunkCenterWorldZ + chunkCenterOffsetZ)) - halfChunkExtentZ;
+        return !(axisCheckValueX >= maxPointContributionRadius || axisCheckValueZ >= maxPointContributionRadius
+                || (axisCheckValueX > 0 && axisCheckValueZ > 0
+                    && axisCheckValueX*axisCheckValueX + axisCheckValueZ*axisCheckValueZ >= maxPointContributionRadiusSq));
+    }
+    
 }
\ No newline at end of file
@@ -0,0 +1,87 @@
+import java.util.concurrent.atomic.LongAdder;
+
+// Thread-safe version of LatticeBiomeCache, for sharing biome evaluations between generation threads.
+// Keys are spread over independently locked stripes, each one a LatticeBiomeCache with its own CLOCK eviction,
+// so threads only contend when they touch the same stripe at the same time.
+// The callback runs outside the lock. Two threads missing on the same key at once may both evaluate it,
+// which only costs time, as the callback has to give the same answer both times.
+// As with LatticeBiomeCache, use one per seed, blender frequency and jitter. The callback must be thread-safe.
+public class ConcurrentLatticeBiomeCache implements ScatteredBiomeBlender.LatticeBiomeEvaluationCallback {
+
+    private static final int STRIPES_PER_THREAD = 4;
+
+    private final ScatteredBiomeBlender.BiomeEvaluationCallback callback;
+    private final LatticeBiomeCache[] stripes;
+    private final int stripeMask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ConcurrentLatticeBiomeCache(ScatteredBiomeBlender.BiomeEvaluationCallback callback, int capacity) {
+        this(callback, capacity, Runtime.getRuntime().availableProcessors() * STRIPES_PER_THREAD);
+    }
+
+    // Stripe count is rounded up to a power of two, and the capacity is split evenly between the stripes.
+    public ConcurrentLatticeBiomeCache(ScatteredBiomeBlender.BiomeEvaluationCallback callback, int capacity, int stripeCount) {
+        if (capacity < 1) throw new IllegalArgumentException("Capacity must be positive, was " + capacity);
+        if (stripeCount < 1) throw new IllegalArgumentException("Stripe count must be positive, was " + stripeCount);
+        int stripeCountBits = 32 - Integer.numberOfLeadingZeros(stripeCount - 1);
+        this.callback = callback;
+        this.stripes = new LatticeBiomeCache[1 << stripeCountBits];
+        this.stripeMask = stripes.length - 1;
+        int stripeCapacity = Math.max(1, capacity >> stripeCountBits);
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new LatticeBiomeCache(callback, stripeCapacity);
+        }
+    }
+
+    // Without a lattice key, there's nothing to cache by.
+    @Override
+    public int getBiomeAt(double x, double z) {
+        return callback.getBiomeAt(x, z);
+    }
+
+    @Override
+    public int getBiomeAt(long latticeKey, double x, double z) {
+        LatticeBiomeCache stripe = getStripe(latticeKey);
+        synchronized (stripe) {
+            int index = stripe.find(latticeKey);
+            if (index >= 0) {
+                hits.increment();
+                return stripe.getValue(index);
+            }
+        }
+        misses.increment();
+
+        int biome = callback.getBiomeAt(x, z);
+        synchronized (stripe) {
+            if (stripe.find(latticeKey) < 0) stripe.put(latticeKey, biome);
+        }
+        return biome;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public int getCapacity() {
+        return stripes.length * stripes[0].getCapacity();
+    }
+
+    public void clear() {
+        for (LatticeBiomeCache stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    // Mixed differently from the stripes' own slot hash, so that keys sharing a stripe still spread over its slots.
+    private LatticeBiomeCache getStripe(long latticeKey) {
+        int hash = (int)(latticeKey ^ (latticeKey >>> 32)) * 0x27D4EB2D;
+        return stripes[(hash ^ (hash >>> 15)) & stripeMask];
+    }
+}
@@ -25,10 +25,6 @@ public class DemoScatteredBlend {
         new Color(8, 112, 32), new Color(133, 161, 90), new Color(104, 112, 112), new Color(242, 232, 52)
 	};
     
-    private interface NoiseGenerator {
-        double getNoise(int x, int z);
-    }
-    
     private static final OpenSimplex2S[] TERRAIN_NOISES = new OpenSimplex2S[10];
     static {
         for (int i = 0; i < TERRAIN_NOISES.length; i++) {
@@ -36,9 +32,9 @@ public class DemoScatteredBlend {
         }
     }
     
-    private static NoiseGenerator[] BIOME_NOISE_GENERATORS = {
+    private static BlendedHeightmapGenerator.NoiseGenerator[] BIOME_NOISE_GENERATORS = {
         // Forest
-        new NoiseGenerator() {
+        new BlendedHeightmapGenerator.NoiseGenerator() {
             public double getNoise(int x, int z) {
                 double value = TERRAIN_NOISES[0].noise2(x * 0.01, z * 0.01);
                 value += TERRAIN_NOISES[1].noise2(x * 0.02, z * 0.02) * 0.5;
@@ -48,7 +44,7 @@ public class DemoScatteredBlend {
             }
         },
         //Plains
-        new NoiseGenerator() {
+        new BlendedHeightmapGenerator.NoiseGenerator() {
             public double getNoise(int x, int z) {
                 double value = TERRAIN_NOISES[2].noise2(x * 0.015, z * 0.015);
                 value += TERRAIN_NOISES[3].noise2(x * 0.03, z * 0.03) * 0.5;
@@ -58,7 +54,7 @@ public class DemoScatteredBlend {
             }
         },
         //Mountains
-        new NoiseGenerator() {
+        new BlendedHeightmapGenerator.NoiseGenerator() {
             public double getNoise(int x, int z) {
                 double value = 1 - Math.abs(TERRAIN_NOISES[4].noise2(x * 0.005, z * 0.005));
                 value += (1 - Math.abs(TERRAIN_NOISES[5].noise2(x * 0.01, z * 0.01))) * 0.5;
@@ -69,7 +65,7 @@ public class DemoScatteredBlend {
             }
         },
         //Desert
-        new NoiseGenerator() {
+        new BlendedHeightmapGenerator.NoiseGenerator() {
             public double getNoise(int x, int z) {
                 double value = 1 - Math.abs(TERRAIN_NOISES[8].noise2(x * 0.015, z * 0.015));
                 value *= (TERRAIN_NOISES[9].noise2(x * 0.015, z * 0.015) * 0.5 + 0.5);
@@ -91,13 +87,21 @@ public class DemoScatteredBlend {
             throws IOException {
 
         ScatteredBiomeBlender blender = new ScatteredBiomeBlender(POINT_FREQUENCY, BLEND_RADIUS_PADDING, CHUNK_WIDTH);
+        BlendedHeightmapGenerator heightmapGenerator = new BlendedHeightmapGenerator(blender, BIOME_NOISE_GENERATORS);
+        ChunkBlendResult blend = new ChunkBlendResult();
+        double[] heights = new double[CHUNK_WIDTH * CHUNK_WIDTH];
 
         // Image
         BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
         for (int zc = 0; zc < HEIGHT; zc += CHUNK_WIDTH) {
             for (int xc = 0; xc < WIDTH; xc += CHUNK_WIDTH) {
                 
-                LinkedBiomeWeightMap firstBiomeWeightMap = blender.getBlendForChunk(JITTER_SEED, xc, zc, DemoScatteredBlend::getBiomeAt);
+                // Blend once, for both the heights and the biome colours.
+                blender.getBlendForChunk(JITTER_SEED, xc, zc, DemoScatteredBlend::getBiomeAt, blend);
+                LinkedBiomeWeightMap firstBiomeWeightMap = blend.toLinkedBiomeWeightMap();
+                if (GENERATE_ACTUAL_TERRAIN) {
+                    heightmapGenerator.getHeightsForChunk(blend, xc, zc, heights);
+                }
                 
                 for (int zi = 0; zi < CHUNK_WIDTH; zi++) {
                     for (int xi = 0; xi < CHUNK_WIDTH; xi++) {
@@ -107,14 +111,7 @@ public class DemoScatteredBlend {
                         double r, g, b; r = g = b = 0;
 						
                         if (GENERATE_ACTUAL_TERRAIN) {
-                            double height = 0;
-                            for (LinkedBiomeWeightMap entry = firstBiomeWeightMap; entry != null; entry = entry.getNext()) {
-                                double weight = entry.getWeights() == null ? 1 : entry.getWeights()[zi * CHUNK_WIDTH + xi];
-                                int biome = entry.getBiome();
-                                double thisHeight = BIOME_NOISE_GENERATORS[biome].getNoise(x, z);
-                                height += thisHeight * weight;
-                            }
-                            r = g = b = (int)height;
+                            r = g = b = (int)heights[zi * CHUNK_WIDTH + xi];
                         } else if (ONLY_RENDER_WEIGHT_BORDERS) {
                             double maxWeight = Double.NEGATIVE_INFINITY;
                             for (LinkedBiomeWeightMap entry = firstBiomeWeightMap; entry != null; entry = entry.getNext()) {
@@ -0,0 +1,60 @@
+import java.util.Arrays;
+
+// Single-precision counterpart to ChunkBlendResult, at half the memory per weight.
+// Weights are packed the same way, as weights[slot * columnCount + column].
+// The arrays only grow, so reusing one instance stops allocating once it has warmed up.
+public class FloatChunkBlendResult {
+    private int columnCount;
+    private final BiomeSlotTable biomeSlots = new BiomeSlotTable();
+    private float[] weights = new float[0];
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    public int getBiomeCount() {
+        return biomeSlots.size();
+    }
+
+    public int getBiome(int slot) {
+        return biomeSlots.getBiome(slot);
+    }
+
+    // Only the first getBiomeCount() entries are valid.
+    public int[] getBiomes() {
+        return biomeSlots.getBiomes();
+    }
+
+    // Only the first getBiomeCount() * getColumnCount() entries are valid.
+    public float[] getWeights() {
+        return weights;
+    }
+
+    public float getWeight(int slot, int column) {
+        return weights[slot * columnCount + column];
+    }
+
+    // Returns -1 if the biome isn't in range of the chunk.
+    public int getSlotForBiome(int biome) {
+        return biomeSlots.getSlot(biome);
+    }
+
+    void reset(int columnCount) {
+        this.columnCount = columnCount;
+        biomeSlots.clear();
+    }
+
+    int getOrAddSlot(int biome) {
+        return biomeSlots.getOrAddSlot(biome);
+    }
+
+    // Makes room for one zeroed row of weights per biome added so far.
+    void clearWeights() {
+        int length = biomeSlots.size() * columnCount;
+        if (weights.length < length) {
+            weights = new float[length];
+        } else {
+            Arrays.fill(weights, 0, length, 0.0f);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+import java.util.Arrays;
+
+// Bounded cache of biome evaluations, keyed by each point's lattice vertex rather than by its jittered coordinates.
+// Open addressing over primitive keys and values, so there's no boxing, and nothing to hash but a long.
+// A key can only live in the few slots following its home slot. When those are all taken,
+// one of them is evicted, giving recently used entries a second chance (a small CLOCK sweep over the window).
+// Lattice keys are the same for every seed, but the points they stand for aren't, so use one cache per seed, blender frequency and jitter.
+// Not thread-safe. Use one per thread, or share a ConcurrentLatticeBiomeCache between threads.
+public class LatticeBiomeCache implements ScatteredBiomeBlender.LatticeBiomeEvaluationCallback {
+
+    private static final int PROBE_WINDOW = 8;
+
+    private static final byte EMPTY = 0;
+    private static final byte OCCUPIED = 1;
+    private static final byte REFERENCED = 2;
+
+    private final ScatteredBiomeBlender.BiomeEvaluationCallback callback;
+    private final int indexShift, indexMask;
+    private final long[] keys;
+    private final int[] values;
+    private final byte[] states;
+
+    // Capacity is rounded up to a power of two.
+    public LatticeBiomeCache(ScatteredBiomeBlender.BiomeEvaluationCallback callback, int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("Capacity must be positive, was " + capacity);
+        int capacityBits = 32 - Integer.numberOfLeadingZeros(Math.max(capacity, PROBE_WINDOW) - 1);
+        this.callback = callback;
+        this.indexShift = 64 - capacityBits;
+        this.indexMask = (1 << capacityBits) - 1;
+        this.keys = new long[1 << capacityBits];
+        this.values = new int[1 << capacityBits];
+        this.states = new byte[1 << capacityBits];
+    }
+
+    // Without a lattice key, there's nothing to cache by.
+    @Override
+    public int getBiomeAt(double x, double z) {
+        return callback.getBiomeAt(x, z);
+    }
+
+    @Override
+    public int getBiomeAt(long latticeKey, double x, double z) {
+        int index = find(latticeKey);
+        if (index >= 0) return values[index];
+
+        int biome = callback.getBiomeAt(x, z);
+        put(latticeKey, biome);
+        return biome;
+    }
+
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    public void clear() {
+        Arrays.fill(states, EMPTY);
+    }
+
+    // Returns the slot holding the key, marking it recently used, or -1.
+    int find(long key) {
+        int home = getHomeIndex(key);
+        for (int i = 0; i < PROBE_WINDOW; i++) {
+            int index = (home + i) & indexMask;
+            byte state = states[index];
+
+            // Entries are only ever replaced, never removed, so an empty slot ends the search.
+            if (state == EMPTY) return -1;
+            if (keys[index] == key) {
+                states[index] = REFERENCED;
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    int getValue(int index) {
+        return values[index];
+    }
+
+    // Assumes the key isn't present.
+    void put(long key, int value) {
+        int home = getHomeIndex(key);
+        int victim = home;
+        for (int i = 0; i < PROBE_WINDOW; i++) {
+            int index = (home + i) & indexMask;
+
+            // Take the first free slot, or the first entry not used since the last sweep. Used ones lose their mark instead.
+            // If every entry was used, the home slot goes.
+            if (states[index] != REFERENCED) {
+                victim = index;
+                break;
+            }
+            states[index] = OCCUPIED;
+        }
+
+        keys[victim] = key;
+        values[victim] = value;
+        states[victim] = OCCUPIED;
+    }
+
+    private int getHomeIndex(long key) {
+        return (int)((key * 0x9E3779B97F4A7C15L) >>> indexShift);
+    }
+}
@@ -0,0 +1,103 @@
+// How far, and in how many directions, points get jittered off their hex lattice vertices.
+// There are 12 * 2^vectorCountMultiplierPower directions, symmetric about the hex grid. More directions
+// spread points more evenly. The amount is a fraction of the largest jitter the grid was designed for:
+// 1.0 is the default, 0 leaves every point on its vertex. Less jitter keeps points closer to their vertices,
+// so the blender can use a smaller minimum blend radius and search fewer lattice vertices, at the cost of
+// a more regular pattern.
+// Immutable. Points and lattice keys only agree between gatherers with the same frequency and jitter.
+public final class LatticeJitter {
+
+    // The jitter hash picks a vector with the top 6 bits of a 32-bit product, leaving 26 for the point's own hash.
+    // Each group of four table entries holds three vectors, so the table can have at most 2^6 entries,
+    // i.e. 48 vectors. Past that, the selector would run out of bits and leave vectors that never get picked.
+    private static final int SELECTOR_BITS = 6;
+    public static final int MAX_VECTOR_COUNT_MULTIPLIER_POWER = SELECTOR_BITS - 4;
+
+    public static final LatticeJitter DEFAULT = new LatticeJitter(1, 1.0);
+
+    private final int vectorCountMultiplierPower;
+    private final double amount;
+    private final double gridscaleAmount;
+
+    // Sines, with cosines overlapping at sinCosOffset. See the constructor.
+    final double[] sinCos;
+    final int vectorIndexMask, sinCosOffset, vectorCountWithRepetition;
+
+    public LatticeJitter(int vectorCountMultiplierPower, double amount) {
+        if (vectorCountMultiplierPower < 0 || vectorCountMultiplierPower > MAX_VECTOR_COUNT_MULTIPLIER_POWER) {
+            throw new IllegalArgumentException("Jitter vector count multiplier power must be between 0 and "
+                    + MAX_VECTOR_COUNT_MULTIPLIER_POWER + ", was " + vectorCountMultiplierPower);
+        }
+        if (!(amount >= 0) || Double.isInfinite(amount)) {
+            throw new IllegalArgumentException("Jitter amount must be finite and non-negative, was " + amount);
+        }
+        this.vectorCountMultiplierPower = vectorCountMultiplierPower;
+        this.amount = amount;
+        this.gridscaleAmount = amount * UnfilteredPointGatherer.JITTER_AMOUNT;
+
+        // Jitter in multiplier*12 directions, symmetric about the hex grid.
+        // cos(t)=sin(t+const) where const=(1/4)*2pi, and N*12 is a multiple of 4, so we can overlap arrays.
+        // Repeat the first in every set of three due to how the pseudo-modulo indexer works.
+        int multiplier = 1 << vectorCountMultiplierPower;
+        int vectorCount = multiplier * 12;
+        this.vectorCountWithRepetition = vectorCount * 4 / 3;
+        this.vectorIndexMask = vectorCountWithRepetition - 1;
+        this.sinCosOffset = multiplier * 4;
+        int sinCosArraySize = vectorCountWithRepetition * 5 / 4;
+        double sinCosOffsetFactor = (1.0 / multiplier);
+        sinCos = new double[sinCosArraySize];
+        for (int i = 0, j = 0; i < vectorCount; i++) {
+            sinCos[j] = Math.sin((i + sinCosOffsetFactor) * ((2.0 * Math.PI) / vectorCount)) * gridscaleAmount;
+            j++;
+
+            // Every time you start a new set, repeat the first entry.
+            // This is because the pseudo-modulo formula,
+            // which aims for an even selection over the vectors,
+            // reallocates the distribution over every four entries
+            // from 25%,25%,25%,25% to a,b,33%,33%, where a+b=33%.
+            // The particular one used here does 0%,33%,33%,33%.
+            if ((j & 3) == 1) {
+                sinCos[j] = sinCos[j - 1];
+                j++;
+            }
+        }
+        for (int j = vectorCountWithRepetition; j < sinCosArraySize; j++) {
+            sinCos[j] = sinCos[j - vectorCountWithRepetition];
+        }
+    }
+
+    public int getVectorCountMultiplierPower() {
+        return vectorCountMultiplierPower;
+    }
+
+    public int getVectorCount() {
+        return 12 << vectorCountMultiplierPower;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    // How far points can move off their vertices, in lattice units, i.e. before dividing by the frequency.
+    public double getGridscaleAmount() {
+        return gridscaleAmount;
+    }
+
+    // Also in lattice units.
+    public double getMaxGridscaleDistanceToClosestPoint() {
+        return gridscaleAmount + UnfilteredPointGatherer.TRIANGLE_CIRCUMRADIUS;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof LatticeJitter)) return false;
+        LatticeJitter otherJitter = (LatticeJitter)other;
+        return vectorCountMultiplierPower == otherJitter.vectorCountMultiplierPower
+                && Double.compare(amount, otherJitter.amount) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * vectorCountMultiplierPower + Double.hashCode(amount);
+    }
+}
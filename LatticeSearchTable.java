@@ -0,0 +1,239 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+// The lattice offsets an UnfilteredPointGatherer searches around the closest vertex, one list per sector of its hexagon.
+// Immutable, and interned: every gatherer with the same lattice-scale radius and jitter shares one table,
+// so blenders created per dimension or per worker only pay for building it once.
+// Stored as flat primitive arrays, one entry per offset, with each sector's entries contiguous.
+final class LatticeSearchTable {
+
+    // Rounding slack for the tables, in grid units.
+    private static final double SEARCH_SLACK = 1.0 / 1024;
+
+    // Never evicted: a table lives as long as the class, even after every gatherer using it is gone.
+    // There's one per distinct (radius times frequency, jitter) pair the program ever creates a public gatherer with,
+    // and a table holds a few hundred to a few thousand offsets at 32 bytes each, so a program that builds gatherers from
+    // a handful of configurations only ever holds a handful of tables. Code that sweeps through many
+    // distinct radii or frequencies (e.g. a slider in an editor) keeps one table per value it visits.
+    // Tables from build() never go in here. ScatteredBiomeBlender uses those for region sizes it doesn't cache.
+    private static final ConcurrentHashMap<Key, LatticeSearchTable> TABLES = new ConcurrentHashMap<>();
+
+    // Sector s has entries sectorStarts[s] up to sectorStarts[s + 1].
+    final int[] sectorStarts;
+    final int[] xsvs, zsvs;
+    final int[] xsvps, zsvps;
+    final double[] xvs, zvs;
+
+    // The contribution radius is in lattice units, i.e. already multiplied by the frequency.
+    static LatticeSearchTable get(double contributionRadius, LatticeJitter jitter) {
+        return TABLES.computeIfAbsent(new Key(contributionRadius, jitter),
+                (Key key) -> new LatticeSearchTable(key.contributionRadius, key.jitter));
+    }
+    
+    // A table only the caller holds, for one-off radii that shouldn't stay in memory after their gatherer is gone.
+    static LatticeSearchTable build(double contributionRadius, LatticeJitter jitter) {
+        LatticeSearchTable table = TABLES.get(new Key(contributionRadius, jitter));
+        return table != null ? table : new LatticeSearchTable(contributionRadius, jitter);
+    }
+
+    private LatticeSearchTable(double contributionRadius, LatticeJitter jitter) {
+        double[] jitterSinCos = jitter.sinCos;
+        int jitterSinCosOffset = jitter.sinCosOffset;
+
+        // How far out in the jittered hex grid we could need to look for points.
+        // Assumes the jitter can go any angle up to its amount, and the query can be anywhere around the closest vertex.
+        // The sector lists narrow this down below.
+        double maxContributingDistance = contributionRadius
+                + jitter.getMaxGridscaleDistanceToClosestPoint() + SEARCH_SLACK;
+        double maxContributingDistanceSq = maxContributingDistance * maxContributingDistance;
+        double latticeSearchRadius = maxContributingDistance * UnfilteredPointGatherer.INVERSE_TRIANGLE_HEIGHT;
+
+        // Start at the central point, and keep traversing bigger hexagonal layers outward.
+        // Exclude points which can't possibly be jittered into range.
+        ArrayList<LatticePoint> pointsToSearchList = new ArrayList<>();
+        pointsToSearchList.add(new LatticePoint(0, 0));
+        for (int i = 1; i < latticeSearchRadius; i++) {
+            int xsv = i;
+            int zsv = 0;
+
+            while (zsv < i) {
+                LatticePoint point = new LatticePoint(xsv, zsv);
+                if (point.xv * point.xv + point.zv * point.zv < maxContributingDistanceSq)
+                    pointsToSearchList.add(point);
+                zsv++;
+            }
+
+            while (xsv > 0) {
+                LatticePoint point = new LatticePoint(xsv, zsv);
+                if (point.xv * point.xv + point.zv * point.zv < maxContributingDistanceSq)
+                    pointsToSearchList.add(point);
+                xsv--;
+            }
+
+            while (xsv > -i) {
+                LatticePoint point = new LatticePoint(xsv, zsv);
+                if (point.xv * point.xv + point.zv * point.zv < maxContributingDistanceSq)
+                    pointsToSearchList.add(point);
+                xsv--;
+                zsv--;
+            }
+
+            while (zsv > -i) {
+                LatticePoint point = new LatticePoint(xsv, zsv);
+                if (point.xv * point.xv + point.zv * point.zv < maxContributingDistanceSq)
+                    pointsToSearchList.add(point);
+                zsv--;
+            }
+
+            while (xsv < 0) {
+                LatticePoint point = new LatticePoint(xsv, zsv);
+                if (point.xv * point.xv + point.zv * point.zv < maxContributingDistanceSq)
+                    pointsToSearchList.add(point);
+                xsv++;
+            }
+
+            while (zsv < 0) {
+                LatticePoint point = new LatticePoint(xsv, zsv);
+                if (point.xv * point.xv + point.zv * point.zv < maxContributingDistanceSq)
+                    pointsToSearchList.add(point);
+                xsv++;
+                zsv++;
+            }
+        }
+
+        // The closest vertex's hexagon splits into six kites along the directions to its neighbours,
+        // and the query's sector says which kite it's in. For each kite, keep only the points which one of
+        // the actual jitter vectors could put within range of some query position in it.
+        // Kite corners: the vertex, the edge midpoints towards two neighbours, and the hexagon corner between them.
+        double[][] neighbours = new double[6][];
+        int[][] neighbourSkewed = { { 1, 0 }, { 1, 1 }, { 0, 1 }, { -1, 0 }, { -1, -1 }, { 0, -1 } };
+        for (int i = 0; i < 6; i++) {
+            double t = (neighbourSkewed[i][0] + neighbourSkewed[i][1]) * -0.211324865405187;
+            neighbours[i] = new double[] { neighbourSkewed[i][0] + t, neighbourSkewed[i][1] + t };
+        }
+        List<List<LatticePoint>> sectorLists = new ArrayList<>(Collections.nCopies(8, (List<LatticePoint>)null));
+        for (int i = 0; i < 6; i++) {
+            double[] a = neighbours[i], b = neighbours[(i + 1) % 6];
+            double[] kite = {
+                    0, 0,
+                    a[0] * 0.5, a[1] * 0.5,
+                    (a[0] + b[0]) * (1.0 / 3.0), (a[1] + b[1]) * (1.0 / 3.0),
+                    b[0] * 0.5, b[1] * 0.5
+            };
+
+            // Halfway to the hexagon corner is well inside the kite. Skew it to find the kite's sector.
+            double kiteCenterX = kite[4] * 0.5, kiteCenterZ = kite[5] * 0.5;
+            double kiteCenterS = (kiteCenterX + kiteCenterZ) * 0.366025403784439;
+            List<LatticePoint> sectorList = new ArrayList<>();
+            for (LatticePoint point : pointsToSearchList) {
+                for (int j = 0; j < jitter.vectorCountWithRepetition; j++) {
+                    double distance = getDistanceToConvexPolygon(point.xv + jitterSinCos[j],
+                            point.zv + jitterSinCos[j + jitterSinCosOffset], kite);
+                    if (distance < contributionRadius + SEARCH_SLACK) {
+                        sectorList.add(point);
+                        break;
+                    }
+                }
+            }
+            sectorLists.set(getSectorIndex(kiteCenterX + kiteCenterS, kiteCenterZ + kiteCenterS), sectorList);
+        }
+
+        // The two sign combinations no query can produce get empty ranges.
+        for (int i = 0; i < 8; i++) {
+            if (sectorLists.get(i) == null) sectorLists.set(i, Collections.<LatticePoint>emptyList());
+        }
+
+        // Flatten, sector by sector.
+        sectorStarts = new int[9];
+        for (int i = 0; i < 8; i++) {
+            sectorStarts[i + 1] = sectorStarts[i] + sectorLists.get(i).size();
+        }
+        int entryCount = sectorStarts[8];
+        xsvs = new int[entryCount];
+        zsvs = new int[entryCount];
+        xsvps = new int[entryCount];
+        zsvps = new int[entryCount];
+        xvs = new double[entryCount];
+        zvs = new double[entryCount];
+        for (int i = 0; i < 8; i++) {
+            int entry = sectorStarts[i];
+            for (LatticePoint point : sectorLists.get(i)) {
+                xsvs[entry] = point.xsv;
+                zsvs[entry] = point.zsv;
+                xsvps[entry] = point.xsvp;
+                zsvps[entry] = point.zsvp;
+                xvs[entry] = point.xv;
+                zvs[entry] = point.zv;
+                entry++;
+            }
+        }
+    }
+
+    // Sign bits of the skewed offset from the closest vertex. Six of the eight combinations can occur, one per kite.
+    static int getSectorIndex(double xsOffset, double zsOffset) {
+        return (xsOffset < 0 ? 4 : 0) | (zsOffset < 0 ? 2 : 0) | (xsOffset < zsOffset ? 1 : 0);
+    }
+
+    // Zero inside the polygon. Corners are packed x, z, x, z, ... in either winding order.
+    private static double getDistanceToConvexPolygon(double x, double z, double[] corners) {
+        int cornerCount = corners.length / 2;
+        boolean anyLeft = false, anyRight = false;
+        double minDistanceSq = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < cornerCount; i++) {
+            int next = (i + 1) % cornerCount;
+            double ax = corners[i * 2], az = corners[i * 2 + 1];
+            double edgeX = corners[next * 2] - ax, edgeZ = corners[next * 2 + 1] - az;
+            double dx = x - ax, dz = z - az;
+            double cross = edgeX * dz - edgeZ * dx;
+            if (cross > 0) anyLeft = true;
+            else if (cross < 0) anyRight = true;
+
+            // Closest point on this edge.
+            double t = Math.min(Math.max((dx * edgeX + dz * edgeZ) / (edgeX * edgeX + edgeZ * edgeZ), 0), 1);
+            double ex = dx - t * edgeX, ez = dz - t * edgeZ;
+            minDistanceSq = Math.min(minDistanceSq, ex * ex + ez * ez);
+        }
+        if (!(anyLeft && anyRight)) return 0;
+        return Math.sqrt(minDistanceSq);
+    }
+
+    private static final class Key {
+        final double contributionRadius;
+        final LatticeJitter jitter;
+
+        Key(double contributionRadius, LatticeJitter jitter) {
+            this.contributionRadius = contributionRadius;
+            this.jitter = jitter;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) return false;
+            Key otherKey = (Key)other;
+            return Double.compare(contributionRadius, otherKey.contributionRadius) == 0 && jitter.equals(otherKey.jitter);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Double.hashCode(contributionRadius) + jitter.hashCode();
+        }
+    }
+
+    // Only used while building the table.
+    private static class LatticePoint {
+        public int xsv, zsv;
+        public int xsvp, zsvp;
+        public double xv, zv;
+        public LatticePoint(int xsv, int zsv) {
+            this.xsv = xsv;
+            this.zsv = zsv;
+            this.xsvp = xsv * UnfilteredPointGatherer.PRIME_X;
+            this.zsvp = zsv * UnfilteredPointGatherer.PRIME_Z;
+            double t = (xsv + zsv) * -0.211324865405187;
+            this.xv = xsv + t;
+            this.zv = zsv + t;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+// Blends a rectangular area of chunks on a thread pool, for pregeneration.
+// Every chunk goes through ScatteredBiomeBlender.getBlendForChunk on its own, using that thread's scratch buffers,
+// so the output matches blending the same chunks one by one on a single thread exactly.
+// The BiomeEvaluationCallback is called from several threads at once, so it needs to be thread-safe.
+public class ParallelRegionBlender {
+
+    // Several tasks per thread, so that threads which finish early can pick up more.
+    private static final int TASKS_PER_THREAD = 4;
+
+    private final ScatteredBiomeBlender blender;
+    private final Executor executor;
+    private final int parallelism;
+
+    public ParallelRegionBlender(ScatteredBiomeBlender blender) {
+        this(blender, ForkJoinPool.commonPool());
+    }
+
+    public ParallelRegionBlender(ScatteredBiomeBlender blender, Executor executor) {
+        this.blender = blender;
+        this.executor = executor;
+        this.parallelism = executor instanceof ForkJoinPool
+                ? ((ForkJoinPool)executor).getParallelism() : Runtime.getRuntime().availableProcessors();
+    }
+
+    // Returns the chunk at (cx, cz) within the area as results[cz * chunksX + cx].
+    public ChunkBlendResult[] getBlendForArea(long seed, int areaBaseWorldX, int areaBaseWorldZ, int chunksX, int chunksZ,
+            ScatteredBiomeBlender.BiomeEvaluationCallback callback) {
+        int chunkWidth = blender.getChunkWidth();
+        int chunkHeight = blender.getChunkHeight();
+        int chunkCount = chunksX * chunksZ;
+        ChunkBlendResult[] results = new ChunkBlendResult[chunkCount];
+
+        // Split the chunks into contiguous runs, in row-major order.
+        int taskCount = Math.max(1, Math.min(chunkCount, parallelism * TASKS_PER_THREAD));
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[taskCount];
+        for (int t = 0; t < taskCount; t++) {
+            int start = (int)((long)chunkCount * t / taskCount);
+            int end = (int)((long)chunkCount * (t + 1) / taskCount);
+            tasks[t] = CompletableFuture.runAsync(() -> {
+                for (int i = start; i < end; i++) {
+                    ChunkBlendResult result = new ChunkBlendResult();
+                    blender.getBlendForChunk(seed, areaBaseWorldX + (i % chunksX) * chunkWidth,
+                            areaBaseWorldZ + (i / chunksX) * chunkHeight, callback, result);
+                    results[i] = result;
+                }
+            }, executor);
+        }
+
+        // Rethrows the first failure, wrapped in a CompletionException.
+        CompletableFuture.allOf(tasks).join();
+        return results;
+    }
+}
@@ -0,0 +1,77 @@
+import java.util.Arrays;
+
+// Reusable struct-of-arrays storage for gathered points, filled by passing it to a gatherer as the PointConsumer.
+// Keeping the coordinates in flat parallel arrays lets the blending loops run without a per-point object.
+// Only the first size() entries of each array are valid. The arrays only grow.
+public class PointBuffer implements PointConsumer {
+    private int size;
+    private double[] xs, zs;
+    private int[] hashes, biomeSlots;
+    private long[] latticeKeys;
+    
+    public PointBuffer() {
+        this(64);
+    }
+    
+    public PointBuffer(int initialCapacity) {
+        initialCapacity = Math.max(initialCapacity, 1);
+        xs = new double[initialCapacity];
+        zs = new double[initialCapacity];
+        hashes = new int[initialCapacity];
+        biomeSlots = new int[initialCapacity];
+        latticeKeys = new long[initialCapacity];
+    }
+    
+    @Override
+    public void accept(double x, double z, int hash) {
+        accept(x, z, hash, 0);
+    }
+    
+    @Override
+    public void accept(double x, double z, int hash, long latticeKey) {
+        if (size == xs.length) grow();
+        xs[size] = x;
+        zs[size] = z;
+        hashes[size] = hash;
+        latticeKeys[size] = latticeKey;
+        size++;
+    }
+    
+    public void clear() {
+        size = 0;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public double[] getXs() {
+        return xs;
+    }
+    
+    public double[] getZs() {
+        return zs;
+    }
+    
+    public int[] getHashes() {
+        return hashes;
+    }
+    
+    public long[] getLatticeKeys() {
+        return latticeKeys;
+    }
+    
+    // Free for the user of the buffer to fill, e.g. with the index of each point's biome in a result.
+    public int[] getBiomeSlots() {
+        return biomeSlots;
+    }
+    
+    private void grow() {
+        int capacity = xs.length * 2;
+        xs = Arrays.copyOf(xs, capacity);
+        zs = Arrays.copyOf(zs, capacity);
+        hashes = Arrays.copyOf(hashes, capacity);
+        biomeSlots = Arrays.copyOf(biomeSlots, capacity);
+        latticeKeys = Arrays.copyOf(latticeKeys, capacity);
+    }
+}
@@ -0,0 +1,10 @@
+// Receives gathered points one at a time, so a gatherer never needs to build a list of them.
+@FunctionalInterface
+public interface PointConsumer {
+    void accept(double x, double z, int hash);
+    
+    // Gatherers call this one. The lattice key identifies the point's lattice vertex, see UnfilteredPointGatherer.getLatticeKey.
+    default void accept(double x, double z, int hash, long latticeKey) {
+        accept(x, z, hash);
+    }
+}
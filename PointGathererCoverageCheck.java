@@ -0,0 +1,236 @@
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+
+// Checks that the gatherers' lattice search tables never miss a point which can contribute, for every jitter setting.
+// Exits with status 1 on any miss.
+// 1. Lattice: for queries anywhere in the plane, including right on the lines between the sector kites, every vertex which
+//    any of the jitter's vectors could put within range has to be searched. The vectors are derived here independently.
+// 2. Chunks: for square and rectangular chunks, every point which lands within the blend radius of some column has to be
+//    gathered. Candidates come from walking every lattice vertex under the chunk grown by an oversized margin,
+//    which doesn't use the tables at all.
+// 3. Blends: the blender's weights have to match weights computed column by column from those brute-force points.
+public class PointGathererCoverageCheck {
+
+    private static final double UNSKEW = -0.211324865405187;
+
+    private static final int[] VECTOR_COUNT_MULTIPLIER_POWERS = { 0, 1, 2 };
+    private static final double[] JITTER_AMOUNTS = { 0, 0.25, 0.5, 1.0, 1.5 };
+
+    // Lattice-scale contribution radii, and query count per radius and jitter.
+    private static final double[] LATTICE_RADII = { 0.5, 1.3, 3, 6 };
+    private static final int LATTICE_QUERY_COUNT = 4000;
+
+    // Sampling frequency and blend radius padding pairs, and chunk sizes as width by height.
+    private static final double[][] BLENDER_SETTINGS = { { 0.04, 8 }, { 0.1, 4 }, { 0.04, 0 } };
+    private static final int[][] CHUNK_SIZES = { { 16, 16 }, { 32, 8 }, { 5, 64 }, { 1, 1 }, { 7, 3 } };
+    private static final int CHUNK_COUNT = 40;
+
+    // Brute-force points are found by a different route, so their coordinates can differ in the last bit.
+    private static final double DISTANCE_SLACK = 1e-9;
+    private static final double WEIGHT_TOLERANCE = 1e-9;
+
+    private static final int SEED = 1234;
+
+    public static void main(String[] args) {
+        Random random = new Random(SEED);
+        long latticeQueries = 0, latticeMisses = 0;
+        long chunks = 0, chunkMisses = 0;
+        double maxWeightDifference = 0;
+
+        for (int power : VECTOR_COUNT_MULTIPLIER_POWERS) {
+            for (double amount : JITTER_AMOUNTS) {
+                LatticeJitter jitter = new LatticeJitter(power, amount);
+                double[][] vectors = getJitterVectors(power, amount);
+                long configLatticeMisses = 0, configChunkMisses = 0;
+                double configMaxWeightDifference = 0;
+
+                for (double radius : LATTICE_RADII) {
+                    UnfilteredPointGatherer<Object> gatherer = new UnfilteredPointGatherer<>(1, radius, jitter);
+                    for (int i = 0; i < LATTICE_QUERY_COUNT; i++) {
+                        configLatticeMisses += checkLatticeQuery(gatherer, vectors, amount, radius, random);
+                    }
+                    latticeQueries += LATTICE_QUERY_COUNT;
+                }
+
+                for (double[] settings : BLENDER_SETTINGS) {
+                    for (int[] chunkSize : CHUNK_SIZES) {
+                        ScatteredBiomeBlender blender = new ScatteredBiomeBlender(settings[0], settings[1], chunkSize[0], chunkSize[1], jitter);
+                        ChunkPointGatherer<Object> chunkGatherer = new ChunkPointGatherer<>(settings[0],
+                                blender.getInternalBlendRadius(), chunkSize[0], chunkSize[1], jitter);
+                        UnfilteredPointGatherer<Object> rectangleGatherer = new UnfilteredPointGatherer<>(settings[0], 0, jitter);
+                        ChunkBlendResult result = new ChunkBlendResult();
+                        for (int i = 0; i < CHUNK_COUNT; i++) {
+                            long seed = random.nextLong();
+                            int chunkBaseWorldX = random.nextInt(2000000) - 1000000;
+                            int chunkBaseWorldZ = random.nextInt(2000000) - 1000000;
+                            int biomeCellShift = random.nextInt(3);
+                            ScatteredBiomeBlender.LatticeBiomeEvaluationCallback callback = new ScatteredBiomeBlender.LatticeBiomeEvaluationCallback() {
+                                public int getBiomeAt(double x, double z) {
+                                    throw new IllegalStateException("The blender should pass lattice keys.");
+                                }
+                                public int getBiomeAt(long latticeKey, double x, double z) {
+                                    return getBiome(latticeKey, biomeCellShift);
+                                }
+                            };
+                            blender.getBlendForChunk(seed, chunkBaseWorldX, chunkBaseWorldZ, callback, result);
+
+                            double[] difference = new double[1];
+                            configChunkMisses += checkChunk(blender, chunkGatherer, rectangleGatherer, seed,
+                                    chunkBaseWorldX, chunkBaseWorldZ, chunkSize[0], chunkSize[1], biomeCellShift, result, difference);
+                            configMaxWeightDifference = Math.max(configMaxWeightDifference, difference[0]);
+                        }
+                        chunks += CHUNK_COUNT;
+                    }
+                }
+
+                System.out.println("Jitter " + (12 << power) + " vectors, amount " + amount + ": "
+                        + configLatticeMisses + " lattice misses, " + configChunkMisses + " chunk misses, max weight difference "
+                        + configMaxWeightDifference);
+                latticeMisses += configLatticeMisses;
+                chunkMisses += configChunkMisses;
+                maxWeightDifference = Math.max(maxWeightDifference, configMaxWeightDifference);
+            }
+        }
+
+        System.out.println("Checked " + latticeQueries + " lattice queries and " + chunks + " chunks. Misses: "
+                + latticeMisses + " (lattice), " + chunkMisses + " (chunk). Max weight difference: " + maxWeightDifference
+                + ". Tolerance: " + WEIGHT_TOLERANCE);
+        if (latticeMisses > 0 || chunkMisses > 0 || !(maxWeightDifference <= WEIGHT_TOLERANCE)) {
+            System.out.println("FAILED");
+            System.exit(1);
+        }
+    }
+
+    // The jitter's directions, straight from the definition rather than LatticeJitter's table.
+    private static double[][] getJitterVectors(int power, double amount) {
+        int multiplier = 1 << power;
+        int vectorCount = multiplier * 12;
+        double length = amount * Math.sqrt(0.5);
+        double[][] vectors = new double[vectorCount][];
+        for (int i = 0; i < vectorCount; i++) {
+            double angle = (i + 1.0 / multiplier) * (2 * Math.PI / vectorCount);
+            vectors[i] = new double[] { Math.sin(angle) * length, Math.cos(angle) * length };
+        }
+        return vectors;
+    }
+
+    // Returns how many vertices the gatherer should have searched, but didn't.
+    private static int checkLatticeQuery(UnfilteredPointGatherer<Object> gatherer, double[][] vectors, double amount,
+            double radius, Random random) {
+
+        // A random closest vertex and skewed offset from it. A quarter of the time, put the query
+        // on one of the lines where the sector index changes.
+        int xsb = random.nextInt(2000) - 1000, zsb = random.nextInt(2000) - 1000;
+        double xsOffset = random.nextDouble() * 1.4 - 0.7, zsOffset = random.nextDouble() * 1.4 - 0.7;
+        switch (random.nextInt(12)) {
+            case 0: xsOffset = 0; break;
+            case 1: zsOffset = 0; break;
+            case 2: zsOffset = xsOffset; break;
+        }
+        double xs = xsb + xsOffset, zs = zsb + zsOffset;
+        double t = (xs + zs) * UNSKEW;
+        double queryX = xs + t, queryZ = zs + t;
+
+        HashSet<Long> searched = new HashSet<>();
+        gatherer.gatherPoints(0, queryX, queryZ, new PointConsumer() {
+            public void accept(double x, double z, int hash) { }
+            public void accept(double x, double z, int hash, long latticeKey) {
+                searched.add(latticeKey);
+            }
+        });
+
+        // Vertices are under one lattice unit apart along either skewed axis, so this covers everything within reach.
+        int misses = 0;
+        int reach = (int)Math.ceil((radius + amount) * 2) + 4;
+        for (int xsv = xsb - reach; xsv <= xsb + reach; xsv++) {
+            for (int zsv = zsb - reach; zsv <= zsb + reach; zsv++) {
+                double vt = (xsv + zsv) * UNSKEW;
+                double dx = xsv + vt - queryX, dz = zsv + vt - queryZ;
+                if (Math.sqrt(dx * dx + dz * dz) - amount * Math.sqrt(0.5) >= radius) continue;
+                for (double[] vector : vectors) {
+                    double jx = dx + vector[0], jz = dz + vector[1];
+                    if (jx * jx + jz * jz < radius * radius) {
+                        if (!searched.contains(UnfilteredPointGatherer.getLatticeKey(xsv, zsv))) misses++;
+                        break;
+                    }
+                }
+            }
+        }
+        return misses;
+    }
+
+    // Returns how many contributing points the chunk gatherer missed, and puts the largest weight difference in difference[0].
+    private static int checkChunk(ScatteredBiomeBlender blender, ChunkPointGatherer<Object> chunkGatherer,
+            UnfilteredPointGatherer<Object> rectangleGatherer, long seed, int chunkBaseWorldX, int chunkBaseWorldZ,
+            int chunkWidth, int chunkHeight, int biomeCellShift, ChunkBlendResult result, double[] difference) {
+        double blendRadius = blender.getInternalBlendRadius();
+        double blendRadiusSq = blendRadius * blendRadius;
+
+        HashSet<Long> gathered = new HashSet<>();
+        chunkGatherer.gatherPointsFromChunkBase(seed, chunkBaseWorldX, chunkBaseWorldZ, new PointConsumer() {
+            public void accept(double x, double z, int hash) { }
+            public void accept(double x, double z, int hash, long latticeKey) {
+                gathered.add(latticeKey);
+            }
+        });
+
+        // Twice the blend radius around the chunk, so the rectangle walk's own margin isn't what's being relied on.
+        double margin = blendRadius * 2;
+        PointBuffer candidates = new PointBuffer();
+        rectangleGatherer.gatherPointsInRectangle(seed, chunkBaseWorldX - margin, chunkBaseWorldZ - margin,
+                chunkBaseWorldX + chunkWidth - 1 + margin, chunkBaseWorldZ + chunkHeight - 1 + margin, candidates);
+        double[] xs = candidates.getXs(), zs = candidates.getZs();
+        long[] latticeKeys = candidates.getLatticeKeys();
+
+        int misses = 0;
+        for (int p = 0; p < candidates.size(); p++) {
+            double dx = Math.max(Math.max(chunkBaseWorldX - xs[p], xs[p] - (chunkBaseWorldX + chunkWidth - 1)), 0);
+            double dz = Math.max(Math.max(chunkBaseWorldZ - zs[p], zs[p] - (chunkBaseWorldZ + chunkHeight - 1)), 0);
+            if (Math.sqrt(dx * dx + dz * dz) < blendRadius - DISTANCE_SLACK && !gathered.contains(latticeKeys[p])) misses++;
+        }
+
+        // Column by column, straight from the definition.
+        int biomeCount = result.getBiomeCount();
+        double[] biomeWeights = new double[biomeCount];
+        double maxDifference = 0;
+        for (int z = 0; z < chunkHeight; z++) {
+            for (int x = 0; x < chunkWidth; x++) {
+                Arrays.fill(biomeWeights, 0);
+                double totalWeight = 0;
+                boolean unknownBiome = false;
+                for (int p = 0; p < candidates.size(); p++) {
+                    double dx = chunkBaseWorldX + x - xs[p], dz = chunkBaseWorldZ + z - zs[p];
+                    double distSq = dx * dx + dz * dz;
+                    if (distSq >= blendRadiusSq) continue;
+                    double weight = blendRadiusSq - distSq;
+                    weight *= weight;
+                    int slot = result.getSlotForBiome(getBiome(latticeKeys[p], biomeCellShift));
+                    if (slot < 0) {
+                        unknownBiome = true;
+                        continue;
+                    }
+                    biomeWeights[slot] += weight;
+                    totalWeight += weight;
+                }
+                if (unknownBiome || totalWeight == 0) {
+                    maxDifference = Double.POSITIVE_INFINITY;
+                    continue;
+                }
+                int column = z * chunkWidth + x;
+                for (int slot = 0; slot < biomeCount; slot++) {
+                    maxDifference = Math.max(maxDifference, Math.abs(biomeWeights[slot] / totalWeight - result.getWeight(slot, column)));
+                }
+            }
+        }
+        difference[0] = maxDifference;
+        return misses;
+    }
+
+    // Clusters of lattice vertices share a biome, from single vertices up to 4 by 4 blocks.
+    private static int getBiome(long latticeKey, int biomeCellShift) {
+        int xsv = (int)(latticeKey >> 32), zsv = (int)latticeKey;
+        int hash = (xsv >> biomeCellShift) * 668908897 ^ (zsv >> biomeCellShift) * 35311;
+        return (hash >>> 13) % 5;
+    }
+}
@@ -0,0 +1,128 @@
+// Compact fixed-point copy of a chunk's blend, for caching while later generation passes run.
+// Stores a palette of the biomes present, and one unsigned 8- or 16-bit weight per column per palette entry,
+// packed as [paletteIndex * columnCount + column]. Each column's weights add up to exactly getQuantizedTotal().
+// A chunk with a single biome stores no weights at all.
+public class QuantizedBiomeWeightMap {
+    private final int columnCount;
+    private final int bits;
+    private final int quantizedTotal;
+    private final double inverseQuantizedTotal;
+    private final int[] palette;
+    private final byte[] weights8;
+    private final short[] weights16;
+
+    private QuantizedBiomeWeightMap(int columnCount, int bits, int[] palette, byte[] weights8, short[] weights16) {
+        this.columnCount = columnCount;
+        this.bits = bits;
+        this.quantizedTotal = (1 << bits) - 1;
+        this.inverseQuantizedTotal = 1.0 / quantizedTotal;
+        this.palette = palette;
+        this.weights8 = weights8;
+        this.weights16 = weights16;
+    }
+
+    // Bits per weight must be 8 or 16.
+    public static QuantizedBiomeWeightMap from(ChunkBlendResult result, int bits) {
+        int biomeCount = result.getBiomeCount();
+        int[] palette = new int[biomeCount];
+        System.arraycopy(result.getBiomes(), 0, palette, 0, biomeCount);
+        return quantize(palette, result.getWeights(), result.getColumnCount(), bits);
+    }
+
+    public static QuantizedBiomeWeightMap from(LinkedBiomeWeightMap firstBiomeWeightMap, int chunkColumnCount, int bits) {
+        int biomeCount = 0;
+        for (LinkedBiomeWeightMap entry = firstBiomeWeightMap; entry != null; entry = entry.getNext()) {
+            biomeCount++;
+        }
+
+        int[] palette = new int[biomeCount];
+        double[] weights = biomeCount > 1 ? new double[biomeCount * chunkColumnCount] : null;
+        int paletteIndex = 0;
+        for (LinkedBiomeWeightMap entry = firstBiomeWeightMap; entry != null; entry = entry.getNext(), paletteIndex++) {
+            palette[paletteIndex] = entry.getBiome();
+            if (weights != null) {
+                System.arraycopy(entry.getWeights(), 0, weights, paletteIndex * chunkColumnCount, chunkColumnCount);
+            }
+        }
+        return quantize(palette, weights, chunkColumnCount, bits);
+    }
+
+    private static QuantizedBiomeWeightMap quantize(int[] palette, double[] weights, int columnCount, int bits) {
+        if (bits != 8 && bits != 16) throw new IllegalArgumentException("Bits per weight must be 8 or 16, was " + bits);
+        int paletteSize = palette.length;
+        if (paletteSize <= 1) return new QuantizedBiomeWeightMap(columnCount, bits, palette, null, null);
+
+        int quantizedTotal = (1 << bits) - 1;
+        int[] quantized = new int[paletteSize];
+        double[] remainders = new double[paletteSize];
+        byte[] weights8 = bits == 8 ? new byte[paletteSize * columnCount] : null;
+        short[] weights16 = bits == 16 ? new short[paletteSize * columnCount] : null;
+        for (int column = 0; column < columnCount; column++) {
+
+            // Round everything down, keeping track of what was lost.
+            int quantizedSum = 0;
+            for (int i = 0; i < paletteSize; i++) {
+                double scaled = Math.min(Math.max(weights[i * columnCount + column], 0.0), 1.0) * quantizedTotal;
+                quantized[i] = (int)scaled;
+                remainders[i] = scaled - quantized[i];
+                quantizedSum += quantized[i];
+            }
+
+            // Hand the shortfall out one unit at a time, largest remainder first, so the column sums to the total exactly.
+            for (int deficit = quantizedTotal - quantizedSum; deficit > 0; deficit--) {
+                int largest = 0;
+                for (int i = 1; i < paletteSize; i++) {
+                    if (remainders[i] > remainders[largest]) largest = i;
+                }
+                quantized[largest]++;
+                remainders[largest] = -1;
+            }
+
+            for (int i = 0; i < paletteSize; i++) {
+                if (weights8 != null) weights8[i * columnCount + column] = (byte)quantized[i];
+                else weights16[i * columnCount + column] = (short)quantized[i];
+            }
+        }
+
+        return new QuantizedBiomeWeightMap(columnCount, bits, palette, weights8, weights16);
+    }
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    public int getBits() {
+        return bits;
+    }
+
+    // What every column's quantized weights add up to: 255 for 8 bits, 65535 for 16.
+    public int getQuantizedTotal() {
+        return quantizedTotal;
+    }
+
+    public int getPaletteSize() {
+        return palette.length;
+    }
+
+    public int getBiome(int paletteIndex) {
+        return palette[paletteIndex];
+    }
+
+    // Returns -1 if the biome isn't present.
+    public int getPaletteIndexForBiome(int biome) {
+        for (int i = 0; i < palette.length; i++) {
+            if (palette[i] == biome) return i;
+        }
+        return -1;
+    }
+
+    public int getQuantizedWeight(int paletteIndex, int column) {
+        if (weights8 != null) return weights8[paletteIndex * columnCount + column] & 0xFF;
+        if (weights16 != null) return weights16[paletteIndex * columnCount + column] & 0xFFFF;
+        return quantizedTotal;
+    }
+
+    public double getWeight(int paletteIndex, int column) {
+        return getQuantizedWeight(paletteIndex, column) * inverseQuantizedTotal;
+    }
+}
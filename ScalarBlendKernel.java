@@ -0,0 +1,37 @@
+class ScalarBlendKernel implements BlendKernel {
+    
+    @Override
+    public void accumulateRow(double[] weights, int weightsIndex, double[] columnTotalWeights, int columnIndex, int count,
+            double startX, double pointX, double dzSq, double blendRadiusSq) {
+        for (int k = 0; k < count; k++) {
+            double dx = (startX + k) - pointX;
+            double distSq = dx * dx + dzSq;
+            
+            // If it's inside the radius...
+            if (distSq < blendRadiusSq) {
+                
+                // Relative weight = [r^2 - (x^2 + z^2)]^2
+                double weight = blendRadiusSq - distSq;
+                weight *= weight;
+                
+                weights[weightsIndex + k] += weight;
+                columnTotalWeights[columnIndex + k] += weight;
+            }
+        }
+    }
+    
+    @Override
+    public void accumulateRow(float[] weights, int weightsIndex, float[] columnTotalWeights, int columnIndex, int count,
+            float startX, float pointX, float dzSq, float blendRadiusSq) {
+        for (int k = 0; k < count; k++) {
+            float dx = (startX + k) - pointX;
+            float distSq = dx * dx + dzSq;
+            if (distSq < blendRadiusSq) {
+                float weight = blendRadiusSq - distSq;
+                weight *= weight;
+                weights[weightsIndex + k] += weight;
+                columnTotalWeights[columnIndex + k] += weight;
+            }
+        }
+    }
+}
@@ -1,126 +1,878 @@
-import java.util.List;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ScatteredBiomeBlender {
     
-    private final int chunkColumnCount;
-    private final int blendRadiusBoundArrayCenter;
-    private final double chunkWidthMinusOne;
+    // Per-thread working arrays, so the blender itself stays immutable and safe to share.
+    // Callbacks run while a blend is using its scratch, and may blend again on the same thread (with this blender or any other),
+    // so each nested blend takes the next scratch down the thread's stack instead of sharing the one in use.
+    private static final ThreadLocal<ScratchStack> SCRATCH = ThreadLocal.withInitial(ScratchStack::new);
+    
+    private static final BlendKernel KERNEL = BlendKernel.loadPreferred();
+    
+    // Chunks are blended in square tiles of this many columns across, so each tile's weights stay in cache,
+    // and each tile only looks at the points whose blend circles reach it.
+    private static final int TILE_WIDTH = 16;
+    
+    // How many region sizes each blender keeps a gatherer for. Callers usually stick to one or two.
+    private static final int MAX_CACHED_REGION_SIZES = 8;
+    
+    // Blenders with the same blend radius share one bound table. Read-only once built.
+    // Never evicted, like LatticeSearchTable's tables: one small array (about blendRadius doubles) per distinct radius ever used.
+    private static final ConcurrentHashMap<Double, double[]> BLEND_RADIUS_BOUNDS = new ConcurrentHashMap<>();
+    
+    private final int chunkWidth, chunkHeight, chunkColumnCount;
+    private final int tilesPerRow, tileCount;
     private final double blendRadius, blendRadiusSq;
     private final double[] blendRadiusBound;
-    private final ChunkPointGatherer<LinkedBiomeWeightMap> gatherer;
+    private final double samplingFrequency;
+    private final LatticeJitter jitter;
+    private final ChunkPointGatherer<Object> gatherer;
+    private final ConcurrentHashMap<Long, ChunkPointGatherer<Object>> regionGatherers = new ConcurrentHashMap<>();
     
-    // chunkWidth should be a power of two.
     public ScatteredBiomeBlender(double samplingFrequency, double blendRadiusPadding, int chunkWidth) {
-        this.chunkWidthMinusOne = chunkWidth - 1;
-        this.chunkColumnCount = chunkWidth * chunkWidth;
-        this.blendRadius = blendRadiusPadding + getInternalMinBlendRadiusForFrequency(samplingFrequency);
+        this(samplingFrequency, blendRadiusPadding, chunkWidth, chunkWidth);
+    }
+    
+    // Chunks are chunkWidth columns along x, by chunkHeight along z. They can be any positive size, and needn't be square.
+    public ScatteredBiomeBlender(double samplingFrequency, double blendRadiusPadding, int chunkWidth, int chunkHeight) {
+        this(samplingFrequency, blendRadiusPadding, chunkWidth, chunkHeight, LatticeJitter.DEFAULT);
+    }
+    
+    // Less jitter, or fewer jitter directions, trade point distribution quality for speed. See LatticeJitter.
+    // The minimum blend radius follows the jitter, so the same padding gives a smaller radius with less of it.
+    public ScatteredBiomeBlender(double samplingFrequency, double blendRadiusPadding, int chunkWidth, int chunkHeight, LatticeJitter jitter) {
+        this.samplingFrequency = samplingFrequency;
+        this.jitter = jitter;
+        this.chunkWidth = chunkWidth;
+        this.chunkHeight = chunkHeight;
+        this.chunkColumnCount = chunkWidth * chunkHeight;
+        this.tilesPerRow = (chunkWidth + TILE_WIDTH - 1) / TILE_WIDTH;
+        this.tileCount = tilesPerRow * ((chunkHeight + TILE_WIDTH - 1) / TILE_WIDTH);
+        this.blendRadius = blendRadiusPadding + getInternalMinBlendRadiusForFrequency(samplingFrequency, jitter);
         this.blendRadiusSq = blendRadius * blendRadius;
-        this.gatherer = new ChunkPointGatherer<LinkedBiomeWeightMap>(samplingFrequency, blendRadius, chunkWidth);
+        this.gatherer = new ChunkPointGatherer<Object>(samplingFrequency, blendRadius, chunkWidth, chunkHeight, jitter);
         
-        blendRadiusBoundArrayCenter = (int)Math.ceil(blendRadius) - 1;
-        blendRadiusBound = new double[blendRadiusBoundArrayCenter * 2 + 1];
-        for (int i = 0; i < blendRadiusBound.length; i++) {
-            int dx = i - blendRadiusBoundArrayCenter;
-            int maxDxBeforeTruncate = Math.abs(dx) + 1;
-            blendRadiusBound[i] = Math.sqrt(blendRadiusSq - maxDxBeforeTruncate);
+        this.blendRadiusBound = BLEND_RADIUS_BOUNDS.computeIfAbsent(blendRadius, ScatteredBiomeBlender::createBlendRadiusBound);
+    }
+    
+    // Half-width of the blend circle on a row, indexed by the truncated row distance from the point.
+    // Any row distance in [k, k+1) has a half-width no greater than blendRadiusBound[k].
+    private static double[] createBlendRadiusBound(double blendRadius) {
+        double blendRadiusSq = blendRadius * blendRadius;
+        double[] blendRadiusBound = new double[(int)blendRadius + 1];
+        for (int k = 0; k < blendRadiusBound.length; k++) {
+            blendRadiusBound[k] = Math.sqrt(Math.max(0, blendRadiusSq - k * k));
         }
-        
+        return blendRadiusBound;
     }
     
     public LinkedBiomeWeightMap getBlendForChunk(long seed, int chunkBaseWorldX, int chunkBaseWorldZ, BiomeEvaluationCallback callback) {
+        ChunkBlendResult result = new ChunkBlendResult();
+        getBlendForChunk(seed, chunkBaseWorldX, chunkBaseWorldZ, callback, result);
+        return result.toLinkedBiomeWeightMap();
+    }
+    
+    // Writes into a caller-owned result, which can be reused from one chunk to the next.
+    public void getBlendForChunk(long seed, int chunkBaseWorldX, int chunkBaseWorldZ, BiomeEvaluationCallback callback, ChunkBlendResult result) {
+        getBlendForChunk(seed, chunkBaseWorldX, chunkBaseWorldZ, callback, null, null, result);
+    }
+    
+    // Evaluates all of the chunk's points with one call to the batch callback.
+    public void getBlendForChunk(long seed, int chunkBaseWorldX, int chunkBaseWorldZ, BatchBiomeEvaluationCallback batchCallback, ChunkBlendResult result) {
+        getBlendForChunk(seed, chunkBaseWorldX, chunkBaseWorldZ, null, batchCallback, null, result);
+    }
+    
+    // Gathers the chunk's points through a sliding window, which reuses the biomes found for recently blended chunks.
+    // The window must come from this blender's createSlidingWindowGatherer. It remembers biomes for the last callback instance it saw.
+    // The points, and their order, are the same as with the plain gatherer, so weights match getBlendForChunk's exactly.
+    public void getBlendForChunk(long seed, int chunkBaseWorldX, int chunkBaseWorldZ, BiomeEvaluationCallback callback,
+            SlidingWindowPointGatherer windowGatherer, ChunkBlendResult result) {
+        if (windowGatherer.frequency != samplingFrequency || windowGatherer.maxPointContributionRadius != blendRadius
+                || windowGatherer.chunkWidth != chunkWidth || windowGatherer.chunkHeight != chunkHeight
+                || !windowGatherer.jitter.equals(jitter)) {
+            throw new IllegalArgumentException("Sliding window gatherer was not created for this blender's settings");
+        }
+        getBlendForChunk(seed, chunkBaseWorldX, chunkBaseWorldZ, callback, null, windowGatherer, result);
+    }
+    
+    // One window per thread, for chunks visited in sequence, such as along a scanline or spiral.
+    public SlidingWindowPointGatherer createSlidingWindowGatherer() {
+        return new SlidingWindowPointGatherer(samplingFrequency, blendRadius, chunkWidth, chunkHeight, jitter);
+    }
+    
+    // Single-precision version. Coordinates are taken relative to the chunk before narrowing, so precision holds far from the origin.
+    public void getBlendForChunk(long seed, int chunkBaseWorldX, int chunkBaseWorldZ, BiomeEvaluationCallback callback, FloatChunkBlendResult result) {
+        getBlendForChunk(seed, chunkBaseWorldX, chunkBaseWorldZ, callback, null, result);
+    }
+    
+    public void getBlendForChunk(long seed, int chunkBaseWorldX, int chunkBaseWorldZ, BatchBiomeEvaluationCallback batchCallback, FloatChunkBlendResult result) {
+        getBlendForChunk(seed, chunkBaseWorldX, chunkBaseWorldZ, null, batchCallback, result);
+    }
+    
+    // Exactly one of the callbacks is non-null. Without a window gatherer, the blender's own gatherer is used.
+    private void getBlendForChunk(long seed, int chunkBaseWorldX, int chunkBaseWorldZ, BiomeEvaluationCallback callback,
+            BatchBiomeEvaluationCallback batchCallback, SlidingWindowPointGatherer windowGatherer, ChunkBlendResult result) {
+        ScratchStack scratchStack = SCRATCH.get();
+        BlendScratch scratch = scratchStack.acquire();
+        try {
+            PointBuffer points = gatherChunkPoints(seed, chunkBaseWorldX, chunkBaseWorldZ, callback, batchCallback, windowGatherer, scratch);
+            
+            // Aggregate all biomes to be blended in this chunk, replacing each biome with its weight row.
+            int pointCount = points.size();
+            int[] pointSlots = points.getBiomeSlots();
+            result.reset(chunkColumnCount);
+            for (int p = 0; p < pointCount; p++) {
+                pointSlots[p] = result.getOrAddSlot(pointSlots[p]);
+            }
+            
+            blendPoints(chunkBaseWorldX, chunkBaseWorldZ, points, result, scratch);
+        } finally {
+            scratchStack.release();
+        }
+    }
+    
+    private void getBlendForChunk(long seed, int chunkBaseWorldX, int chunkBaseWorldZ,
+            BiomeEvaluationCallback callback, BatchBiomeEvaluationCallback batchCallback, FloatChunkBlendResult result) {
+        ScratchStack scratchStack = SCRATCH.get();
+        BlendScratch scratch = scratchStack.acquire();
+        try {
+            PointBuffer points = gatherChunkPoints(seed, chunkBaseWorldX, chunkBaseWorldZ, callback, batchCallback, null, scratch);
+            
+            int pointCount = points.size();
+            int[] pointSlots = points.getBiomeSlots();
+            result.reset(chunkColumnCount);
+            for (int p = 0; p < pointCount; p++) {
+                pointSlots[p] = result.getOrAddSlot(pointSlots[p]);
+            }
+            
+            blendPoints(chunkBaseWorldX, chunkBaseWorldZ, points, result, scratch);
+        } finally {
+            scratchStack.release();
+        }
+    }
+    
+    // Returns the scratch point buffer, filled with the data points in range and with each point's biome in its biome slot.
+    private PointBuffer gatherChunkPoints(long seed, int chunkBaseWorldX, int chunkBaseWorldZ, BiomeEvaluationCallback callback,
+            BatchBiomeEvaluationCallback batchCallback, SlidingWindowPointGatherer windowGatherer, BlendScratch scratch) {
         
-        // Get the list of data points in range.
-        List<GatheredPoint<LinkedBiomeWeightMap>> points = gatherer.getPointsFromChunkBase(seed, chunkBaseWorldX, chunkBaseWorldZ);
+        // Get the data points in range.
+        PointBuffer points = scratch.points;
+        points.clear();
+        if (windowGatherer != null) {
+            
+            // The window keeps recent points' biomes, so it only evaluates the points it hasn't seen.
+            windowGatherer.gatherPointsFromChunkBase(seed, chunkBaseWorldX, chunkBaseWorldZ, callback, points);
+            return points;
+        }
+        gatherer.gatherPointsFromChunkBase(seed, chunkBaseWorldX, chunkBaseWorldZ, points);
         
-        // Evaluate and aggregate all biomes to be blended in this chunk.
-        LinkedBiomeWeightMap linkedBiomeMapStartEntry = null;
-        for (GatheredPoint<LinkedBiomeWeightMap> point : points) {
+        // Get the biome for each data point from the callback.
+        evaluateBiomes(callback, batchCallback, points, points.getBiomeSlots());
+        return points;
+    }
+    
+    // Blends a single column. See the overload below.
+    public LinkedBiomeWeightMap getBlendAt(long seed, int x, int z, BiomeEvaluationCallback callback) {
+        ChunkBlendResult result = new ChunkBlendResult();
+        getBlendAt(seed, x, z, callback, result);
+        return result.toLinkedBiomeWeightMap();
+    }
+    
+    // Blends a single column, writing a one-column result with only the biomes that have weight there.
+    // Each thread remembers the points around the chunk-sized cell of its last query, and the biomes of those it has needed so far,
+    // so further queries nearby, with the same seed and callback instance, skip gathering, and only evaluate points new to their radius.
+    // Weights match the corresponding column of getBlendForChunk, up to rounding in the last bit. Where only one biome reaches
+    // the column, this gives exactly 1.0, but the chunk blend can give that biome's total weight times its reciprocal.
+    public void getBlendAt(long seed, int x, int z, BiomeEvaluationCallback callback, ChunkBlendResult result) {
+        ScratchStack scratchStack = SCRATCH.get();
+        BlendScratch scratch = scratchStack.acquire();
+        try {
+            int cellBaseWorldX = Math.floorDiv(x, chunkWidth) * chunkWidth;
+            int cellBaseWorldZ = Math.floorDiv(z, chunkHeight) * chunkHeight;
+            PointBuffer points = scratch.queryPoints;
+            boolean[] pointsEvaluated;
+            if (scratch.queryBlender.get() != this || scratch.querySeed != seed || scratch.queryCallback.get() != callback
+                    || scratch.queryCellBaseWorldX != cellBaseWorldX || scratch.queryCellBaseWorldZ != cellBaseWorldZ) {
+                
+                // Gathering is cheap, so take the whole cell. Biomes wait until a query actually needs them.
+                points.clear();
+                gatherer.gatherPointsFromChunkBase(seed, cellBaseWorldX, cellBaseWorldZ, points);
+                pointsEvaluated = scratch.getQueryPointsEvaluated(points.size());
+                scratch.queryBlender = new WeakReference<>(this);
+                scratch.querySeed = seed;
+                scratch.queryCallback = new WeakReference<>(callback);
+                scratch.queryCellBaseWorldX = cellBaseWorldX;
+                scratch.queryCellBaseWorldZ = cellBaseWorldZ;
+            } else {
+                pointsEvaluated = scratch.queryPointsEvaluated;
+            }
+            int pointCount = points.size();
+            double[] pointXs = points.getXs();
+            double[] pointZs = points.getZs();
+            int[] pointBiomes = points.getBiomeSlots();
+            
+            // Weigh the points in range, in the same order and the same way as the chunk blend does.
+            // Only these need their biomes.
+            int[] contributingSlots = scratch.getContributingSlots(pointCount);
+            double[] contributingWeights = scratch.getContributingWeights(pointCount);
+            int contributingCount = 0;
+            double totalWeight = 0;
+            result.reset(1);
+            for (int p = 0; p < pointCount; p++) {
+                double dx = x - pointXs[p];
+                double dz = z - pointZs[p];
+                double distSq = dx * dx + dz * dz;
+                if (distSq < blendRadiusSq) {
+                    double weight = blendRadiusSq - distSq;
+                    weight *= weight;
+                    
+                    if (!pointsEvaluated[p]) {
+                        pointBiomes[p] = evaluateBiome(callback, points, p);
+                        pointsEvaluated[p] = true;
+                    }
+                    contributingSlots[contributingCount] = result.getOrAddSlot(pointBiomes[p]);
+                    contributingWeights[contributingCount++] = weight;
+                    totalWeight += weight;
+                }
+            }
+            result.clearWeights();
+            double[] weights = result.getWeights();
+            
+            if (result.getBiomeCount() == 1) {
+                weights[0] = 1.0;
+                return;
+            }
+            
+            for (int c = 0; c < contributingCount; c++) {
+                weights[contributingSlots[c]] += contributingWeights[c];
+            }
+            double inverseTotalWeight = 1.0 / totalWeight;
+            for (int slot = 0; slot < result.getBiomeCount(); slot++) {
+                weights[slot] *= inverseTotalWeight;
+            }
+        } finally {
+            scratchStack.release();
+        }
+    }
+    
+    // Keeps only the strongest few biomes of each column, renormalized. See TopBiomesBlendResult.
+    // Rather than building every biome's weight row for the whole chunk first, this blends one tile at a time,
+    // into rows just the size of the tile, and selects from each of its columns before moving on.
+    // The tile's columns get the same spans, in the same order, as in getBlendForChunk, so results match selecting from its weights.
+    public void getTopBiomesForChunk(long seed, int chunkBaseWorldX, int chunkBaseWorldZ, BiomeEvaluationCallback callback, TopBiomesBlendResult result) {
+        ScratchStack scratchStack = SCRATCH.get();
+        BlendScratch scratch = scratchStack.acquire();
+        try {
+            PointBuffer points = gatherChunkPoints(seed, chunkBaseWorldX, chunkBaseWorldZ, callback, null, null, scratch);
+            int pointCount = points.size();
+            double[] pointXs = points.getXs();
+            double[] pointZs = points.getZs();
+            int[] pointSlots = points.getBiomeSlots();
+            
+            BiomeSlotTable biomeSlots = scratch.biomeSlots;
+            biomeSlots.clear();
+            for (int p = 0; p < pointCount; p++) {
+                pointSlots[p] = biomeSlots.getOrAddSlot(pointSlots[p]);
+            }
+            int biomeCount = biomeSlots.size();
+            int[] slotBiomes = biomeSlots.getBiomes();
+            result.reset(chunkColumnCount, biomeCount);
+            
+            // If there is only one biome in range here, every column gets all of its weight.
+            if (biomeCount == 1) {
+                double[] slotWeights = scratch.getTileWeights(1);
+                slotWeights[0] = 1.0;
+                for (int column = 0; column < chunkColumnCount; column++) {
+                    result.selectColumn(column, slotWeights, 0, 1, slotBiomes, biomeCount);
+                }
+                return;
+            }
+            
+            buildSpans(chunkBaseWorldX, chunkBaseWorldZ, points, scratch);
+            int[] tileSpanStarts = scratch.tileSpanStarts;
+            int[] spanPoints = scratch.spanPoints, spanRows = scratch.spanRows;
+            int[] spanXiStarts = scratch.spanXiStarts, spanXiEnds = scratch.spanXiEnds;
+            for (int tile = 0; tile < tileCount; tile++) {
+                int tileXStart = (tile % tilesPerRow) * TILE_WIDTH;
+                int tileZStart = (tile / tilesPerRow) * TILE_WIDTH;
+                int tileWidth = Math.min(tileXStart + TILE_WIDTH, chunkWidth) - tileXStart;
+                int tileHeight = Math.min(tileZStart + TILE_WIDTH, chunkHeight) - tileZStart;
+                int tileColumnCount = tileWidth * tileHeight;
+                
+                // Weights indexed [slot * tileColumnCount + (zi - tileZStart) * tileWidth + (xi - tileXStart)], and totals by column.
+                double[] tileWeights = scratch.getTileWeights(biomeCount * tileColumnCount);
+                double[] tileTotalWeights = scratch.getColumnTotalWeights(tileColumnCount);
+                for (int span = tileSpanStarts[tile]; span < tileSpanStarts[tile + 1]; span++) {
+                    int p = spanPoints[span];
+                    int zi = spanRows[span];
+                    int xiStart = spanXiStarts[span], xiEnd = spanXiEnds[span];
+                    int i = (zi - tileZStart) * tileWidth + (xiStart - tileXStart);
+                    
+                    if (p < 0) {
+                        int weightsOffset = ~p * tileColumnCount;
+                        Arrays.fill(tileWeights, weightsOffset + i, weightsOffset + i + xiEnd - xiStart + 1, 1.0);
+                        Arrays.fill(tileTotalWeights, i, i + xiEnd - xiStart + 1, 1.0);
+                        continue;
+                    }
+                    
+                    double dz = (chunkBaseWorldZ + zi) - pointZs[p];
+                    KERNEL.accumulateRow(tileWeights, pointSlots[p] * tileColumnCount + i, tileTotalWeights, i, xiEnd - xiStart + 1,
+                            chunkBaseWorldX + xiStart, pointXs[p], dz * dz, blendRadiusSq);
+                }
+                
+                // Normalize each column the same way blendPoints does, then keep its strongest.
+                for (int i = 0; i < tileColumnCount; i++) {
+                    double inverseTotalWeight = 1.0 / tileTotalWeights[i];
+                    for (int j = i; j < biomeCount * tileColumnCount; j += tileColumnCount) {
+                        tileWeights[j] *= inverseTotalWeight;
+                    }
+                    int column = (tileZStart + i / tileWidth) * chunkWidth + tileXStart + i % tileWidth;
+                    result.selectColumn(column, tileWeights, i, tileColumnCount, slotBiomes, biomeCount);
+                }
+            }
+        } finally {
+            scratchStack.release();
+        }
+    }
+    
+    // Blends per-biome values straight into output channels (height, temperature, colour components, ...),
+    // without building per-biome weight maps. The provider is asked once for each biome in range.
+    // Each of channelsOut[channel] needs room for a full chunk of columns, indexed z * chunkWidth + x.
+    // Per-biome weights aren't rounded on their own first, so results can differ from applying a ChunkBlendResult in the last bit.
+    public void getBlendedValuesForChunk(long seed, int chunkBaseWorldX, int chunkBaseWorldZ, BiomeEvaluationCallback callback,
+            BiomeChannelProvider channelProvider, double[][] channelsOut) {
+        ScratchStack scratchStack = SCRATCH.get();
+        BlendScratch scratch = scratchStack.acquire();
+        try {
+            PointBuffer points = gatherChunkPoints(seed, chunkBaseWorldX, chunkBaseWorldZ, callback, null, null, scratch);
+            int pointCount = points.size();
+            double[] pointXs = points.getXs();
+            double[] pointZs = points.getZs();
+            int[] pointSlots = points.getBiomeSlots();
+            int channelCount = channelsOut.length;
             
-            // Get the biome for this data point from the callback.
-            int biome = callback.getBiomeAt(point.getX(), point.getZ());
+            // Look up the channel values once per biome.
+            BiomeSlotTable biomeSlots = scratch.biomeSlots;
+            biomeSlots.clear();
+            for (int p = 0; p < pointCount; p++) {
+                pointSlots[p] = biomeSlots.getOrAddSlot(pointSlots[p]);
+            }
+            double[] biomeChannelValues = scratch.getBiomeChannelValues(biomeSlots.size() * channelCount);
+            double[] channelValues = scratch.getChannelValues(channelCount);
+            for (int slot = 0; slot < biomeSlots.size(); slot++) {
+                channelProvider.getChannelValues(biomeSlots.getBiome(slot), channelValues);
+                System.arraycopy(channelValues, 0, biomeChannelValues, slot * channelCount, channelCount);
+            }
             
-            // Find or create the chunk biome blend weight layer entry for this biome.
-            LinkedBiomeWeightMap entry = linkedBiomeMapStartEntry;
-            while (entry != null) {
-                if (entry.getBiome() == biome) break;
-                entry = entry.getNext();
+            // If there is only one biome in range here, every column just gets its values.
+            if (biomeSlots.size() == 1) {
+                for (int c = 0; c < channelCount; c++) {
+                    Arrays.fill(channelsOut[c], 0, chunkColumnCount, biomeChannelValues[c]);
+                }
+                return;
             }
-            if (entry == null) {
-                entry = linkedBiomeMapStartEntry =
-                    new LinkedBiomeWeightMap(biome, linkedBiomeMapStartEntry);
+            
+            for (int c = 0; c < channelCount; c++) {
+                Arrays.fill(channelsOut[c], 0, chunkColumnCount, 0.0);
+            }
+            
+            // Same spans as blendPoints, accumulating weighted values instead of weights.
+            int spanCount = buildSpans(chunkBaseWorldX, chunkBaseWorldZ, points, scratch);
+            int[] spanPoints = scratch.spanPoints, spanRows = scratch.spanRows;
+            int[] spanXiStarts = scratch.spanXiStarts, spanXiEnds = scratch.spanXiEnds;
+            double[] columnTotalWeights = scratch.getColumnTotalWeights(chunkColumnCount);
+            for (int span = 0; span < spanCount; span++) {
+                int p = spanPoints[span];
+                int zi = spanRows[span];
+                int xiStart = spanXiStarts[span], xiEnd = spanXiEnds[span];
+                
+                // Inside a biome, every column of the span just gets its values.
+                if (p < 0) {
+                    int uniformSlot = ~p;
+                    int i = zi * chunkWidth;
+                    Arrays.fill(columnTotalWeights, i + xiStart, i + xiEnd + 1, 1.0);
+                    for (int c = 0; c < channelCount; c++) {
+                        Arrays.fill(channelsOut[c], i + xiStart, i + xiEnd + 1, biomeChannelValues[uniformSlot * channelCount + c]);
+                    }
+                    continue;
+                }
+                
+                int valuesOffset = pointSlots[p] * channelCount;
+                double pointX = pointXs[p];
+                double dz = (chunkBaseWorldZ + zi) - pointZs[p];
+                double dzSq = dz * dz;
+                int i = zi * chunkWidth + xiStart;
+                for (int xi = xiStart; xi <= xiEnd; xi++, i++) {
+                    double dx = (chunkBaseWorldX + xi) - pointX;
+                    double distSq = dx * dx + dzSq;
+                    if (distSq < blendRadiusSq) {
+                        double weight = blendRadiusSq - distSq;
+                        weight *= weight;
+                        
+                        columnTotalWeights[i] += weight;
+                        for (int c = 0; c < channelCount; c++) {
+                            channelsOut[c][i] += weight * biomeChannelValues[valuesOffset + c];
+                        }
+                    }
+                }
             }
             
-            point.setTag(entry);
+            // Normalize by the total weight in each column.
+            for (int i = 0; i < chunkColumnCount; i++) {
+                columnTotalWeights[i] = 1.0 / columnTotalWeights[i];
+            }
+            for (int c = 0; c < channelCount; c++) {
+                double[] channel = channelsOut[c];
+                for (int i = 0; i < chunkColumnCount; i++) {
+                    channel[i] *= columnTotalWeights[i];
+                }
+            }
+        } finally {
+            scratchStack.release();
+        }
+    }
+    
+    // Blends a chunksX by chunksZ block of chunks, gathering the points and evaluating their biomes once for the whole block.
+    // The chunk at (cx, cz) within the block is written to results[cz * chunksX + cx]. Null entries are filled in.
+    // Weights differ slightly from getBlendForChunk's. The block's points are jittered from a different base vertex than
+    // a single chunk's search uses, so their coordinates round differently, and they reach the weights in a different order.
+    // The rounding is relative to the coordinates, so the difference grows with distance from the origin: about 1e-13 near it,
+    // 4e-11 at 1.6e6 and 7e-9 at 1.6e8, for 2x2 blocks of 16-wide chunks and no blend radius padding.
+    // That's roughly 5e-17 times the distance. More padding spreads the weight over more points and makes it smaller.
+    public void getBlendForRegion(long seed, int regionBaseWorldX, int regionBaseWorldZ, int chunksX, int chunksZ,
+            BiomeEvaluationCallback callback, ChunkBlendResult[] results) {
+        getBlendForRegion(seed, regionBaseWorldX, regionBaseWorldZ, chunksX, chunksZ, callback, null, results);
+    }
+    
+    // Evaluates all of the region's points with one call to the batch callback.
+    public void getBlendForRegion(long seed, int regionBaseWorldX, int regionBaseWorldZ, int chunksX, int chunksZ,
+            BatchBiomeEvaluationCallback batchCallback, ChunkBlendResult[] results) {
+        getBlendForRegion(seed, regionBaseWorldX, regionBaseWorldZ, chunksX, chunksZ, null, batchCallback, results);
+    }
+    
+    private void getBlendForRegion(long seed, int regionBaseWorldX, int regionBaseWorldZ, int chunksX, int chunksZ,
+            BiomeEvaluationCallback callback, BatchBiomeEvaluationCallback batchCallback, ChunkBlendResult[] results) {
+        ScratchStack scratchStack = SCRATCH.get();
+        BlendScratch scratch = scratchStack.acquire();
+        try {
+            
+            // Get the data points in range of any chunk in the region, and their biomes.
+            // A block of chunks is gathered as if it were one big chunk. Those gatherers are kept per block size, up to a few sizes.
+            // Past that, odd sizes get a gatherer just for the call, with a search table that isn't interned,
+            // so sweeping through many sizes doesn't leave a table behind for each one.
+            long regionSizeKey = ((long)chunksX << 32) | (chunksZ & 0xFFFFFFFFL);
+            ChunkPointGatherer<Object> regionGatherer = regionGatherers.get(regionSizeKey);
+            if (regionGatherer == null) {
+                boolean cache = regionGatherers.size() < MAX_CACHED_REGION_SIZES;
+                regionGatherer = new ChunkPointGatherer<Object>(samplingFrequency, blendRadius, chunksX * chunkWidth, chunksZ * chunkHeight,
+                        jitter, cache);
+                if (cache) {
+                    ChunkPointGatherer<Object> existing = regionGatherers.putIfAbsent(regionSizeKey, regionGatherer);
+                    if (existing != null) regionGatherer = existing;
+                }
+            }
+            PointBuffer regionPoints = scratch.regionPoints;
+            regionPoints.clear();
+            regionGatherer.gatherPointsFromChunkBase(seed, regionBaseWorldX, regionBaseWorldZ, regionPoints);
+            double[] regionPointXs = regionPoints.getXs();
+            double[] regionPointZs = regionPoints.getZs();
+            int[] regionPointHashes = regionPoints.getHashes();
+            long[] regionPointLatticeKeys = regionPoints.getLatticeKeys();
+            int[] regionPointBiomes = regionPoints.getBiomeSlots();
+            evaluateBiomes(callback, batchCallback, regionPoints, regionPointBiomes);
+            
+            // Hand each region point to the chunks it reaches, in point order.
+            buildRegionChunkPointLists(regionBaseWorldX, regionBaseWorldZ, chunksX, chunksZ, regionPoints, scratch);
+            int[] chunkPointStarts = scratch.regionChunkPointStarts;
+            int[] chunkPoints = scratch.regionChunkPoints;
+            
+            PointBuffer points = scratch.points;
+            for (int cz = 0; cz < chunksZ; cz++) {
+                for (int cx = 0; cx < chunksX; cx++) {
+                    int chunk = cz * chunksX + cx;
+                    int chunkBaseWorldX = regionBaseWorldX + cx * chunkWidth;
+                    int chunkBaseWorldZ = regionBaseWorldZ + cz * chunkHeight;
+                    ChunkBlendResult result = results[chunk];
+                    if (result == null) result = results[chunk] = new ChunkBlendResult();
+                    
+                    // Copy out this chunk's points, along with their already-evaluated biomes.
+                    points.clear();
+                    result.reset(chunkColumnCount);
+                    for (int k = chunkPointStarts[chunk]; k < chunkPointStarts[chunk + 1]; k++) {
+                        int p = chunkPoints[k];
+                        points.accept(regionPointXs[p], regionPointZs[p], regionPointHashes[p], regionPointLatticeKeys[p]);
+                        points.getBiomeSlots()[points.size() - 1] = result.getOrAddSlot(regionPointBiomes[p]);
+                    }
+                    
+                    blendPoints(chunkBaseWorldX, chunkBaseWorldZ, points, result, scratch);
+                }
+            }
+        } finally {
+            scratchStack.release();
+        }
+    }
+    
+    // Lists, for each chunk of the region, the region points in range of it, in point order.
+    // Packed into scratch.regionChunkPoints, with chunk c's running from regionChunkPointStarts[c] to regionChunkPointStarts[c + 1].
+    // Each point is only tested against the chunks its circle's bounding box overlaps.
+    private void buildRegionChunkPointLists(int regionBaseWorldX, int regionBaseWorldZ, int chunksX, int chunksZ,
+            PointBuffer regionPoints, BlendScratch scratch) {
+        int regionPointCount = regionPoints.size();
+        double[] regionPointXs = regionPoints.getXs();
+        double[] regionPointZs = regionPoints.getZs();
+        int chunkCount = chunksX * chunksZ;
+        int[] chunkPointStarts = scratch.getRegionChunkPointStarts(chunkCount + 1);
+        
+        // Count the points per chunk, then lay the lists out back to back, and then fill them.
+        for (int pass = 0; pass < 2; pass++) {
+            for (int p = 0; p < regionPointCount; p++) {
+                double pointX = regionPointXs[p];
+                double pointZ = regionPointZs[p];
+                int cxStart = Math.max(0, Math.floorDiv((int)Math.ceil(pointX - blendRadius) - regionBaseWorldX, chunkWidth));
+                int cxEnd = Math.min(chunksX - 1, Math.floorDiv((int)Math.floor(pointX + blendRadius) - regionBaseWorldX, chunkWidth));
+                int czStart = Math.max(0, Math.floorDiv((int)Math.ceil(pointZ - blendRadius) - regionBaseWorldZ, chunkHeight));
+                int czEnd = Math.min(chunksZ - 1, Math.floorDiv((int)Math.floor(pointZ + blendRadius) - regionBaseWorldZ, chunkHeight));
+                for (int cz = czStart; cz <= czEnd; cz++) {
+                    for (int cx = cxStart; cx <= cxEnd; cx++) {
+                        
+                        // Near the corners, the box reaches chunks the circle doesn't.
+                        if (!gatherer.isInRangeOfChunkBase(pointX, pointZ,
+                                regionBaseWorldX + cx * chunkWidth, regionBaseWorldZ + cz * chunkHeight)) continue;
+                        int chunk = cz * chunksX + cx;
+                        if (pass == 0) chunkPointStarts[chunk + 1]++;
+                        else scratch.regionChunkPoints[chunkPointStarts[chunk]++] = p;
+                    }
+                }
+            }
+            
+            if (pass == 0) {
+                for (int chunk = 0; chunk < chunkCount; chunk++) {
+                    chunkPointStarts[chunk + 1] += chunkPointStarts[chunk];
+                }
+                scratch.getRegionChunkPoints(chunkPointStarts[chunkCount]);
+            }
         }
         
+        // Filling advanced each start to the next list's start.
+        System.arraycopy(chunkPointStarts, 0, chunkPointStarts, 1, chunkCount);
+        chunkPointStarts[0] = 0;
+    }
+    
+    // Lattice-aware callbacks also get each point's lattice key, so they can cache by it.
+    static void evaluateBiomes(BiomeEvaluationCallback callback, BatchBiomeEvaluationCallback batchCallback,
+            PointBuffer points, int[] biomesOut) {
+        int pointCount = points.size();
+        double[] pointXs = points.getXs();
+        double[] pointZs = points.getZs();
+        if (batchCallback != null) {
+            batchCallback.getBiomesAt(pointXs, pointZs, pointCount, biomesOut);
+        } else if (callback instanceof LatticeBiomeEvaluationCallback) {
+            LatticeBiomeEvaluationCallback latticeCallback = (LatticeBiomeEvaluationCallback)callback;
+            long[] pointLatticeKeys = points.getLatticeKeys();
+            for (int p = 0; p < pointCount; p++) {
+                biomesOut[p] = latticeCallback.getBiomeAt(pointLatticeKeys[p], pointXs[p], pointZs[p]);
+            }
+        } else {
+            for (int p = 0; p < pointCount; p++) {
+                biomesOut[p] = callback.getBiomeAt(pointXs[p], pointZs[p]);
+            }
+        }
+    }
+    
+    // One point's biome, the same way evaluateBiomes gets it.
+    private static int evaluateBiome(BiomeEvaluationCallback callback, PointBuffer points, int p) {
+        if (callback instanceof LatticeBiomeEvaluationCallback) {
+            return ((LatticeBiomeEvaluationCallback)callback).getBiomeAt(points.getLatticeKeys()[p], points.getXs()[p], points.getZs()[p]);
+        }
+        return callback.getBiomeAt(points.getXs()[p], points.getZs()[p]);
+    }
+    
+    // Fills in the result's weights, given points whose biome slots in the result are already set.
+    private void blendPoints(int chunkBaseWorldX, int chunkBaseWorldZ, PointBuffer points, ChunkBlendResult result, BlendScratch scratch) {
+        double[] pointXs = points.getXs();
+        double[] pointZs = points.getZs();
+        int[] pointSlots = points.getBiomeSlots();
+        
+        result.clearWeights();
+        double[] weights = result.getWeights();
+        
         // If there is only one biome in range here, we can skip the actual blending step.
-        if (linkedBiomeMapStartEntry != null && linkedBiomeMapStartEntry.getNext() == null) {
-            /*double[] weights = new double[chunkColumnCount];
-            linkedBiomeMapStartEntry.setWeights(weights);
+        if (result.getBiomeCount() == 1) {
+            Arrays.fill(weights, 0, chunkColumnCount, 1.0);
+            return;
+        }
+        
+        int spanCount = buildSpans(chunkBaseWorldX, chunkBaseWorldZ, points, scratch);
+        int[] spanPoints = scratch.spanPoints, spanRows = scratch.spanRows;
+        int[] spanXiStarts = scratch.spanXiStarts, spanXiEnds = scratch.spanXiEnds;
+        double[] columnTotalWeights = scratch.getColumnTotalWeights(chunkColumnCount);
+        for (int span = 0; span < spanCount; span++) {
+            int p = spanPoints[span];
+            int zi = spanRows[span];
+            int xiStart = spanXiStarts[span], xiEnd = spanXiEnds[span];
+            
+            // The other biomes' weights are already zero.
+            if (p < 0) {
+                int i = zi * chunkWidth;
+                int weightsOffset = ~p * chunkColumnCount;
+                Arrays.fill(weights, weightsOffset + i + xiStart, weightsOffset + i + xiEnd + 1, 1.0);
+                Arrays.fill(columnTotalWeights, i + xiStart, i + xiEnd + 1, 1.0);
+                continue;
+            }
+            
+            int weightsOffset = pointSlots[p] * chunkColumnCount;
+            double dz = (chunkBaseWorldZ + zi) - pointZs[p];
+            int i = zi * chunkWidth + xiStart;
+            KERNEL.accumulateRow(weights, weightsOffset + i, columnTotalWeights, i, xiEnd - xiStart + 1,
+                    chunkBaseWorldX + xiStart, pointXs[p], dz * dz, blendRadiusSq);
+        }
+        
+        // Normalize so all weights in a column add up to 1.
+        for (int i = 0; i < chunkColumnCount; i++) {
+            columnTotalWeights[i] = 1.0 / columnTotalWeights[i];
+        }
+        int weightsLength = result.getBiomeCount() * chunkColumnCount;
+        for (int j = 0; j < weightsLength; j += chunkColumnCount) {
             for (int i = 0; i < chunkColumnCount; i++) {
-                weights[i] = 1.0;
-            }*/
-            return linkedBiomeMapStartEntry;
+                weights[j + i] *= columnTotalWeights[i];
+            }
+        }
+    }
+    
+    // Same as above, but in single precision, relative to the chunk base.
+    private void blendPoints(int chunkBaseWorldX, int chunkBaseWorldZ, PointBuffer points, FloatChunkBlendResult result, BlendScratch scratch) {
+        double[] pointXs = points.getXs();
+        double[] pointZs = points.getZs();
+        int[] pointSlots = points.getBiomeSlots();
+        
+        result.clearWeights();
+        float[] weights = result.getWeights();
+        
+        if (result.getBiomeCount() == 1) {
+            Arrays.fill(weights, 0, chunkColumnCount, 1.0f);
+            return;
         }
         
-        for (LinkedBiomeWeightMap entry = linkedBiomeMapStartEntry; entry != null; entry = entry.getNext()) {
-            entry.setWeights(new double[chunkColumnCount]);
+        int spanCount = buildSpans(chunkBaseWorldX, chunkBaseWorldZ, points, scratch);
+        int[] spanPoints = scratch.spanPoints, spanRows = scratch.spanRows;
+        int[] spanXiStarts = scratch.spanXiStarts, spanXiEnds = scratch.spanXiEnds;
+        float blendRadiusSqFloat = (float)blendRadiusSq;
+        float[] columnTotalWeights = scratch.getColumnTotalWeightsFloat(chunkColumnCount);
+        for (int span = 0; span < spanCount; span++) {
+            int p = spanPoints[span];
+            int zi = spanRows[span];
+            int xiStart = spanXiStarts[span], xiEnd = spanXiEnds[span];
+            
+            if (p < 0) {
+                int i = zi * chunkWidth;
+                int weightsOffset = ~p * chunkColumnCount;
+                Arrays.fill(weights, weightsOffset + i + xiStart, weightsOffset + i + xiEnd + 1, 1.0f);
+                Arrays.fill(columnTotalWeights, i + xiStart, i + xiEnd + 1, 1.0f);
+                continue;
+            }
+            
+            int weightsOffset = pointSlots[p] * chunkColumnCount;
+            float relativePointX = (float)(pointXs[p] - chunkBaseWorldX);
+            float dz = zi - (float)(pointZs[p] - chunkBaseWorldZ);
+            int i = zi * chunkWidth + xiStart;
+            KERNEL.accumulateRow(weights, weightsOffset + i, columnTotalWeights, i, xiEnd - xiStart + 1,
+                    xiStart, relativePointX, dz * dz, blendRadiusSqFloat);
         }
         
-        double z = chunkBaseWorldZ, x = chunkBaseWorldX;
-        double xStart = x;
-        double xEnd = xStart + chunkWidthMinusOne;
         for (int i = 0; i < chunkColumnCount; i++) {
+            columnTotalWeights[i] = 1.0f / columnTotalWeights[i];
+        }
+        int weightsLength = result.getBiomeCount() * chunkColumnCount;
+        for (int j = 0; j < weightsLength; j += chunkColumnCount) {
+            for (int i = 0; i < chunkColumnCount; i++) {
+                weights[j + i] *= columnTotalWeights[i];
+            }
+        }
+    }
+    
+    // Lists the runs of columns the blends visit, one row at a time, into the scratch span arrays. Returns how many there are.
+    // Within each tile, this loops over the points rather than the columns, so only the columns inside each point's circle get visited.
+    // Every column still receives its contributions in point order, so the result matches a column-major scan.
+    // Spans are listed tile by tile, with tile t's running from tileSpanStarts[t] to tileSpanStarts[t + 1].
+    // Span s is row spanRows[s] from column spanXiStarts[s] to spanXiEnds[s], reached by point spanPoints[s]. If every point
+    // reaching a tile has the same biome, the tile's rows get one span each, with spanPoints[s] = ~slot instead: that biome gets
+    // all of the weight there, the same as a chunk with a single biome. Blending would have given w * (1 / w) instead of exactly 1.0,
+    // which can be an ulp away.
+    private int buildSpans(int chunkBaseWorldX, int chunkBaseWorldZ, PointBuffer points, BlendScratch scratch) {
+        double[] pointXs = points.getXs();
+        double[] pointZs = points.getZs();
+        int[] pointSlots = points.getBiomeSlots();
+        buildTilePointLists(chunkBaseWorldX, chunkBaseWorldZ, points, scratch);
+        int[] tilePointStarts = scratch.tilePointStarts;
+        int[] tilePoints = scratch.tilePoints;
+        int[] tileSpanStarts = scratch.getTileSpanStarts(tileCount + 1);
+        int spanCount = 0;
+        for (int tile = 0; tile < tileCount; tile++) {
+            tileSpanStarts[tile] = spanCount;
+            int tileXStart = (tile % tilesPerRow) * TILE_WIDTH;
+            int tileZStart = (tile / tilesPerRow) * TILE_WIDTH;
+            int tileXEnd = Math.min(tileXStart + TILE_WIDTH, chunkWidth) - 1;
+            int tileZEnd = Math.min(tileZStart + TILE_WIDTH, chunkHeight) - 1;
             
-            // Consider each data point to see if it's inside the radius for this column.
-            double columnTotalWeight = 0.0;
-            for (GatheredPoint<LinkedBiomeWeightMap> point : points) {
-                double dx = x - point.getX();
-                double dz = z - point.getZ();
+            int uniformSlot = getUniformTileSlot(tile, pointSlots, scratch);
+            if (uniformSlot >= 0) {
+                for (int zi = tileZStart; zi <= tileZEnd; zi++) {
+                    scratch.setSpan(spanCount++, ~uniformSlot, zi, tileXStart, tileXEnd);
+                }
+                continue;
+            }
+            
+            for (int k = tilePointStarts[tile]; k < tilePointStarts[tile + 1]; k++) {
+                int p = tilePoints[k];
+                double pointX = pointXs[p];
+                double pointZ = pointZs[p];
                 
-                double distSq = dx * dx + dz * dz;
+                // Rows the blend circle reaches, clipped to the tile.
+                int ziStart = Math.max(tileZStart, (int)Math.ceil(pointZ - blendRadius) - chunkBaseWorldZ);
+                int ziEnd = Math.min(tileZEnd, (int)Math.floor(pointZ + blendRadius) - chunkBaseWorldZ);
+                for (int zi = ziStart; zi <= ziEnd; zi++) {
+                    
+                    // Column span the blend circle can reach on this row, clipped to the tile.
+                    double rowBound = blendRadiusBound[(int)Math.abs((chunkBaseWorldZ + zi) - pointZ)];
+                    int xiStart = Math.max(tileXStart, (int)Math.ceil(pointX - rowBound) - chunkBaseWorldX);
+                    int xiEnd = Math.min(tileXEnd, (int)Math.floor(pointX + rowBound) - chunkBaseWorldX);
+                    if (xiStart > xiEnd) continue;
+                    
+                    scratch.setSpan(spanCount++, p, zi, xiStart, xiEnd);
+                }
+            }
+        }
+        tileSpanStarts[tileCount] = spanCount;
+        return spanCount;
+    }
+    
+    // Lists, for each tile, the points whose blend circles may reach it, in point order.
+    // The lists are packed into scratch.tilePoints, with tile t's running from tilePointStarts[t] to tilePointStarts[t + 1].
+    private void buildTilePointLists(int chunkBaseWorldX, int chunkBaseWorldZ, PointBuffer points, BlendScratch scratch) {
+        int pointCount = points.size();
+        double[] pointXs = points.getXs();
+        double[] pointZs = points.getZs();
+        int[] tilePointStarts = scratch.getTilePointStarts(tileCount + 1);
+        
+        // Count the points per tile, then lay the lists out back to back, and then fill them.
+        for (int pass = 0; pass < 2; pass++) {
+            for (int p = 0; p < pointCount; p++) {
+                double pointX = pointXs[p];
+                double pointZ = pointZs[p];
+                int ziStart = Math.max(0, (int)Math.ceil(pointZ - blendRadius) - chunkBaseWorldZ);
+                int ziEnd = Math.min(chunkHeight - 1, (int)Math.floor(pointZ + blendRadius) - chunkBaseWorldZ);
+                if (ziStart > ziEnd) continue;
                 
-                // If it's inside the radius...
-                if (distSq < blendRadiusSq) {
+                for (int tz = ziStart / TILE_WIDTH; tz <= ziEnd / TILE_WIDTH; tz++) {
                     
-                    // Relative weight = [r^2 - (x^2 + z^2)]^2
-                    double weight = blendRadiusSq - distSq;
-                    weight *= weight;
+                    // The widest span the circle has on any row of this tile row is on the row closest to the point.
+                    double tileZStart = chunkBaseWorldZ + Math.max(tz * TILE_WIDTH, ziStart);
+                    double tileZEnd = chunkBaseWorldZ + Math.min(tz * TILE_WIDTH + TILE_WIDTH - 1, ziEnd);
+                    double closestDz = Math.max(0, Math.max(tileZStart - pointZ, pointZ - tileZEnd));
+                    double rowBound = blendRadiusBound[(int)closestDz];
+                    int xiStart = Math.max(0, (int)Math.ceil(pointX - rowBound) - chunkBaseWorldX);
+                    int xiEnd = Math.min(chunkWidth - 1, (int)Math.floor(pointX + rowBound) - chunkBaseWorldX);
+                    if (xiStart > xiEnd) continue;
                     
-                    point.getTag().getWeights()[i] += weight;
-                    columnTotalWeight += weight;
+                    int tileRowStart = tz * tilesPerRow;
+                    for (int tile = tileRowStart + xiStart / TILE_WIDTH; tile <= tileRowStart + xiEnd / TILE_WIDTH; tile++) {
+                        if (pass == 0) tilePointStarts[tile + 1]++;
+                        else scratch.tilePoints[tilePointStarts[tile]++] = p;
+                    }
                 }
             }
             
-            // Normalize so all weights in a column add up to 1.
-            double inverseTotalWeight = 1.0 / columnTotalWeight;
-            for (LinkedBiomeWeightMap entry = linkedBiomeMapStartEntry; entry != null; entry = entry.getNext()) {
-                entry.getWeights()[i] *= inverseTotalWeight;
+            if (pass == 0) {
+                
+                // Each tile's list starts where the previous one's ends.
+                for (int tile = 0; tile < tileCount; tile++) {
+                    tilePointStarts[tile + 1] += tilePointStarts[tile];
+                }
+                scratch.getTilePoints(tilePointStarts[tileCount]);
             }
-            
-            // A double can fully represent an int, so no precision loss to worry about here.
-            if (x == xEnd) {
-                x = xStart;
-                z++;
-            } else x++;
         }
         
-        return linkedBiomeMapStartEntry;
+        // Filling advanced each start to the end of its own list, i.e. to the next list's start.
+        System.arraycopy(tilePointStarts, 0, tilePointStarts, 1, tileCount);
+        tilePointStarts[0] = 0;
+    }
+    
+    // Returns the slot shared by every point in the tile's list, or -1 if they don't all share one.
+    private static int getUniformTileSlot(int tile, int[] pointSlots, BlendScratch scratch) {
+        int start = scratch.tilePointStarts[tile], end = scratch.tilePointStarts[tile + 1];
+        if (start == end) return -1;
+        int[] tilePoints = scratch.tilePoints;
+        int slot = pointSlots[tilePoints[start]];
+        for (int k = start + 1; k < end; k++) {
+            if (pointSlots[tilePoints[k]] != slot) return -1;
+        }
+        return slot;
     }
     
     public static double getInternalMinBlendRadiusForFrequency(double samplingFrequency) {
-        return UnfilteredPointGatherer.MAX_GRIDSCALE_DISTANCE_TO_CLOSEST_POINT / samplingFrequency;
+        return getInternalMinBlendRadiusForFrequency(samplingFrequency, LatticeJitter.DEFAULT);
+    }
+    
+    public static double getInternalMinBlendRadiusForFrequency(double samplingFrequency, LatticeJitter jitter) {
+        return jitter.getMaxGridscaleDistanceToClosestPoint() / samplingFrequency;
     }
     
     public double getInternalBlendRadius() {
         return blendRadius;
     }
     
+    public int getChunkWidth() {
+        return chunkWidth;
+    }
+    
+    public int getChunkHeight() {
+        return chunkHeight;
+    }
+    
+    public LatticeJitter getLatticeJitter() {
+        return jitter;
+    }
+    
+    // Binds a seed, for worlds that only use one. Cheap, and doesn't copy any of the blender's tables.
+    public SeededBiomeBlender withSeed(long seed) {
+        return new SeededBiomeBlender(this, seed);
+    }
+    
     @FunctionalInterface
     public static interface BiomeEvaluationCallback {
         int getBiomeAt(double x, double z);
     }
     
+    // Fills valuesOut with one value per channel for the biome.
+    @FunctionalInterface
+    public static interface BiomeChannelProvider {
+        void getChannelValues(int biome, double[] valuesOut);
+    }
+    
+    // Evaluates many points per call, so a biome source can run its noise over all of them in tight loops.
+    // Only the first count entries of each array are meaningful. The arrays belong to the blender, so don't keep them.
+    @FunctionalInterface
+    public static interface BatchBiomeEvaluationCallback {
+        void getBiomesAt(double[] xs, double[] zs, int count, int[] biomesOut);
+        
+        // Adapts a single-point callback, calling it once per point.
+        static BatchBiomeEvaluationCallback of(BiomeEvaluationCallback callback) {
+            return (double[] xs, double[] zs, int count, int[] biomesOut) -> {
+                for (int i = 0; i < count; i++) {
+                    biomesOut[i] = callback.getBiomeAt(xs[i], zs[i]);
+                }
+            };
+        }
+    }
+    
+    // A callback that also receives the point's lattice key (see UnfilteredPointGatherer.getLatticeKey) whenever the blender has it.
+    // The key is the same for every evaluation of the same point, for a given seed and sampling frequency.
+    public static interface LatticeBiomeEvaluationCallback extends BiomeEvaluationCallback {
+        int getBiomeAt(long latticeKey, double x, double z);
+    }
+    
     private static class BiomeEvaluation {
         int biome;
         double tempDzSquared;
@@ -129,4 +881,143 @@ public class ScatteredBiomeBlender {
         }
     }
     
+    // One scratch per level of blends nested through callbacks. Deeper ones are kept for reuse, like the arrays in them.
+    private static class ScratchStack {
+        BlendScratch[] scratches = { new BlendScratch() };
+        int depth;
+        
+        BlendScratch acquire() {
+            if (depth == scratches.length) {
+                scratches = Arrays.copyOf(scratches, depth + 1);
+                scratches[depth] = new BlendScratch();
+            }
+            return scratches[depth++];
+        }
+        
+        void release() {
+            depth--;
+        }
+    }
+    
+    private static class BlendScratch {
+        final PointBuffer points = new PointBuffer();
+        final PointBuffer regionPoints = new PointBuffer();
+        double[] columnTotalWeights = new double[0];
+        float[] columnTotalWeightsFloat = new float[0];
+        int[] tilePointStarts = new int[0];
+        int[] tilePoints = new int[0];
+        int[] tileSpanStarts = new int[0];
+        int[] spanPoints = new int[0], spanRows = new int[0];
+        int[] spanXiStarts = new int[0], spanXiEnds = new int[0];
+        int[] regionChunkPointStarts = new int[0];
+        int[] regionChunkPoints = new int[0];
+        
+        // For the blends that don't fill in a ChunkBlendResult: getBlendedValuesForChunk and getTopBiomesForChunk.
+        final BiomeSlotTable biomeSlots = new BiomeSlotTable();
+        double[] biomeChannelValues = new double[0];
+        double[] channelValues = new double[0];
+        double[] tileWeights = new double[0];
+        
+        // The last neighbourhood gathered by getBlendAt, which of its points' biomes are known, and what it was gathered for.
+        // The blender and callback are held weakly, so a thread's scratch never keeps them alive.
+        final PointBuffer queryPoints = new PointBuffer();
+        boolean[] queryPointsEvaluated = new boolean[0];
+        WeakReference<ScatteredBiomeBlender> queryBlender = new WeakReference<>(null);
+        WeakReference<BiomeEvaluationCallback> queryCallback = new WeakReference<>(null);
+        long querySeed;
+        int queryCellBaseWorldX, queryCellBaseWorldZ;
+        int[] contributingSlots = new int[0];
+        double[] contributingWeights = new double[0];
+        
+        // Returns the array zeroed over the requested range.
+        double[] getColumnTotalWeights(int columnCount) {
+            if (columnTotalWeights.length < columnCount) columnTotalWeights = new double[columnCount];
+            else Arrays.fill(columnTotalWeights, 0, columnCount, 0.0);
+            return columnTotalWeights;
+        }
+        
+        // Returns the array cleared over the requested range.
+        boolean[] getQueryPointsEvaluated(int pointCount) {
+            if (queryPointsEvaluated.length < pointCount) queryPointsEvaluated = new boolean[pointCount * 2];
+            else Arrays.fill(queryPointsEvaluated, 0, pointCount, false);
+            return queryPointsEvaluated;
+        }
+        
+        int[] getContributingSlots(int pointCount) {
+            if (contributingSlots.length < pointCount) contributingSlots = new int[pointCount * 2];
+            return contributingSlots;
+        }
+        
+        double[] getContributingWeights(int pointCount) {
+            if (contributingWeights.length < pointCount) contributingWeights = new double[pointCount * 2];
+            return contributingWeights;
+        }
+        
+        double[] getBiomeChannelValues(int length) {
+            if (biomeChannelValues.length < length) biomeChannelValues = new double[length * 2];
+            return biomeChannelValues;
+        }
+        
+        // Returns the array zeroed over the requested range.
+        double[] getTileWeights(int length) {
+            if (tileWeights.length < length) tileWeights = new double[length * 2];
+            else Arrays.fill(tileWeights, 0, length, 0.0);
+            return tileWeights;
+        }
+        
+        double[] getChannelValues(int channelCount) {
+            if (channelValues.length != channelCount) channelValues = new double[channelCount];
+            return channelValues;
+        }
+        
+        // Returns the array zeroed over the requested range.
+        int[] getTilePointStarts(int length) {
+            if (tilePointStarts.length < length) tilePointStarts = new int[length];
+            else Arrays.fill(tilePointStarts, 0, length, 0);
+            return tilePointStarts;
+        }
+        
+        int[] getTilePoints(int length) {
+            if (tilePoints.length < length) tilePoints = new int[length * 2];
+            return tilePoints;
+        }
+        
+        // Returns the array zeroed over the requested range.
+        int[] getRegionChunkPointStarts(int length) {
+            if (regionChunkPointStarts.length < length) regionChunkPointStarts = new int[length];
+            else Arrays.fill(regionChunkPointStarts, 0, length, 0);
+            return regionChunkPointStarts;
+        }
+        
+        int[] getRegionChunkPoints(int length) {
+            if (regionChunkPoints.length < length) regionChunkPoints = new int[length * 2];
+            return regionChunkPoints;
+        }
+        
+        int[] getTileSpanStarts(int length) {
+            if (tileSpanStarts.length < length) tileSpanStarts = new int[length];
+            return tileSpanStarts;
+        }
+        
+        void setSpan(int span, int point, int zi, int xiStart, int xiEnd) {
+            if (span == spanPoints.length) {
+                int length = Math.max(64, span * 2);
+                spanPoints = Arrays.copyOf(spanPoints, length);
+                spanRows = Arrays.copyOf(spanRows, length);
+                spanXiStarts = Arrays.copyOf(spanXiStarts, length);
+                spanXiEnds = Arrays.copyOf(spanXiEnds, length);
+            }
+            spanPoints[span] = point;
+            spanRows[span] = zi;
+            spanXiStarts[span] = xiStart;
+            spanXiEnds[span] = xiEnd;
+        }
+        
+        float[] getColumnTotalWeightsFloat(int columnCount) {
+            if (columnTotalWeightsFloat.length < columnCount) columnTotalWeightsFloat = new float[columnCount];
+            else Arrays.fill(columnTotalWeightsFloat, 0, columnCount, 0.0f);
+            return columnTotalWeightsFloat;
+        }
+    }
+    
 }
\ No newline at end of file
@@ -0,0 +1,78 @@
+// A ScatteredBiomeBlender bound to one seed, for the usual case of a world that only ever uses the one.
+// Same methods, minus the seed argument. Get one from ScatteredBiomeBlender.withSeed.
+// Immutable and safe to share between threads, like the blender itself.
+public class SeededBiomeBlender {
+    private final ScatteredBiomeBlender blender;
+    private final long seed;
+
+    SeededBiomeBlender(ScatteredBiomeBlender blender, long seed) {
+        this.blender = blender;
+        this.seed = seed;
+    }
+
+    public ScatteredBiomeBlender getBlender() {
+        return blender;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public LinkedBiomeWeightMap getBlendForChunk(int chunkBaseWorldX, int chunkBaseWorldZ,
+            ScatteredBiomeBlender.BiomeEvaluationCallback callback) {
+        return blender.getBlendForChunk(seed, chunkBaseWorldX, chunkBaseWorldZ, callback);
+    }
+
+    public void getBlendForChunk(int chunkBaseWorldX, int chunkBaseWorldZ,
+            ScatteredBiomeBlender.BiomeEvaluationCallback callback, ChunkBlendResult result) {
+        blender.getBlendForChunk(seed, chunkBaseWorldX, chunkBaseWorldZ, callback, result);
+    }
+
+    public void getBlendForChunk(int chunkBaseWorldX, int chunkBaseWorldZ,
+            ScatteredBiomeBlender.BatchBiomeEvaluationCallback batchCallback, ChunkBlendResult result) {
+        blender.getBlendForChunk(seed, chunkBaseWorldX, chunkBaseWorldZ, batchCallback, result);
+    }
+
+    public void getBlendForChunk(int chunkBaseWorldX, int chunkBaseWorldZ, ScatteredBiomeBlender.BiomeEvaluationCallback callback,
+            SlidingWindowPointGatherer windowGatherer, ChunkBlendResult result) {
+        blender.getBlendForChunk(seed, chunkBaseWorldX, chunkBaseWorldZ, callback, windowGatherer, result);
+    }
+
+    public void getBlendForChunk(int chunkBaseWorldX, int chunkBaseWorldZ,
+            ScatteredBiomeBlender.BiomeEvaluationCallback callback, FloatChunkBlendResult result) {
+        blender.getBlendForChunk(seed, chunkBaseWorldX, chunkBaseWorldZ, callback, result);
+    }
+
+    public void getBlendForChunk(int chunkBaseWorldX, int chunkBaseWorldZ,
+            ScatteredBiomeBlender.BatchBiomeEvaluationCallback batchCallback, FloatChunkBlendResult result) {
+        blender.getBlendForChunk(seed, chunkBaseWorldX, chunkBaseWorldZ, batchCallback, result);
+    }
+
+    public LinkedBiomeWeightMap getBlendAt(int x, int z, ScatteredBiomeBlender.BiomeEvaluationCallback callback) {
+        return blender.getBlendAt(seed, x, z, callback);
+    }
+
+    public void getBlendAt(int x, int z, ScatteredBiomeBlender.BiomeEvaluationCallback callback, ChunkBlendResult result) {
+        blender.getBlendAt(seed, x, z, callback, result);
+    }
+
+    public void getTopBiomesForChunk(int chunkBaseWorldX, int chunkBaseWorldZ,
+            ScatteredBiomeBlender.BiomeEvaluationCallback callback, TopBiomesBlendResult result) {
+        blender.getTopBiomesForChunk(seed, chunkBaseWorldX, chunkBaseWorldZ, callback, result);
+    }
+
+    public void getBlendedValuesForChunk(int chunkBaseWorldX, int chunkBaseWorldZ, ScatteredBiomeBlender.BiomeEvaluationCallback callback,
+            ScatteredBiomeBlender.BiomeChannelProvider channelProvider, double[][] channelsOut) {
+        blender.getBlendedValuesForChunk(seed, chunkBaseWorldX, chunkBaseWorldZ, callback, channelProvider, channelsOut);
+    }
+
+    public void getBlendForRegion(int regionBaseWorldX, int regionBaseWorldZ, int chunksX, int chunksZ,
+            ScatteredBiomeBlender.BiomeEvaluationCallback callback, ChunkBlendResult[] results) {
+        blender.getBlendForRegion(seed, regionBaseWorldX, regionBaseWorldZ, chunksX, chunksZ, callback, results);
+    }
+
+    public void getBlendForRegion(int regionBaseWorldX, int regionBaseWorldZ, int chunksX, int chunksZ,
+            ScatteredBiomeBlender.BatchBiomeEvaluationCallback batchCallback, ChunkBlendResult[] results) {
+        blender.getBlendForRegion(seed, regionBaseWorldX, regionBaseWorldZ, chunksX, chunksZ, batchCallback, results);
+    }
+}
@@ -0,0 +1,131 @@
+import java.util.HashMap;
+import java.util.Random;
+
+// Checks that blending through a SlidingWindowPointGatherer finds the same points, with the same biomes, as the blender's own gatherer.
+// Exits with status 1 on any mismatch.
+// Each window takes a random walk: mostly single steps to a neighbouring chunk, with jumps far across the plane,
+// seed changes and callback changes mixed in, since those are where stale points or biomes would show.
+// At every step, the window's lattice keys have to match a ChunkPointGatherer's exactly, each point's biome has to be
+// what the current callback gives, and the blend has to match getBlendForChunk's exactly.
+public class SlidingWindowGathererCheck {
+
+    // Sampling frequency and blend radius padding pairs, and chunk sizes as width by height.
+    private static final double[][] BLENDER_SETTINGS = { { 0.04, 24 }, { 0.1, 4 }, { 0.2, 16 }, { 0.04, 0 } };
+    private static final int[][] CHUNK_SIZES = { { 16, 16 }, { 32, 8 }, { 5, 40 }, { 1, 1 } };
+    private static final int STEP_COUNT = 3000;
+
+    // Out of every 100 steps.
+    private static final int JUMP_CHANCE = 4;
+    private static final int SEED_CHANGE_CHANCE = 3;
+    private static final int CALLBACK_CHANGE_CHANCE = 3;
+
+    // The window gathers the same points in the same order as the blender's own gatherer, so the weights are identical.
+    private static final double WEIGHT_TOLERANCE = 0;
+
+    private static final int SEED = 4321;
+
+    public static void main(String[] args) {
+        Random random = new Random(SEED);
+        long steps = 0, keyMismatches = 0, biomeMismatches = 0;
+        double maxWeightDifference = 0;
+
+        // Different biome layouts, each a separate callback instance.
+        ScatteredBiomeBlender.BiomeEvaluationCallback[] callbacks = {
+                (double x, double z) -> ((int)Math.floor(x / 61) * 7 + (int)Math.floor(z / 47) * 3) & 7,
+                (double x, double z) -> ((int)Math.floor(x / 23) ^ (int)Math.floor(z / 91)) & 3,
+                (double x, double z) -> (int)Math.floor((x + z) / 150) & 15
+        };
+
+        for (double[] settings : BLENDER_SETTINGS) {
+            for (int[] chunkSize : CHUNK_SIZES) {
+                int chunkWidth = chunkSize[0], chunkHeight = chunkSize[1];
+                ScatteredBiomeBlender blender = new ScatteredBiomeBlender(settings[0], settings[1], chunkWidth, chunkHeight);
+                SlidingWindowPointGatherer windowGatherer = blender.createSlidingWindowGatherer();
+                ChunkPointGatherer<Object> chunkGatherer = new ChunkPointGatherer<>(settings[0],
+                        blender.getInternalBlendRadius(), chunkWidth, chunkHeight);
+                PointBuffer windowPoints = new PointBuffer(), expectedPoints = new PointBuffer();
+                ChunkBlendResult windowResult = new ChunkBlendResult(), expectedResult = new ChunkBlendResult();
+                HashMap<Long, Integer> expectedKeys = new HashMap<>();
+
+                long seed = random.nextLong();
+                ScatteredBiomeBlender.BiomeEvaluationCallback callback = callbacks[0];
+                int chunkX = 0, chunkZ = 0;
+                long configKeyMismatches = 0, configBiomeMismatches = 0;
+                double configMaxWeightDifference = 0;
+                for (int step = 0; step < STEP_COUNT; step++) {
+                    int roll = random.nextInt(100);
+                    if (roll < JUMP_CHANCE) {
+                        chunkX = (random.nextInt(2000000) - 1000000) / chunkWidth;
+                        chunkZ = (random.nextInt(2000000) - 1000000) / chunkHeight;
+                    } else if ((roll -= JUMP_CHANCE) < SEED_CHANGE_CHANCE) {
+                        seed = random.nextLong();
+                    } else if ((roll -= SEED_CHANGE_CHANCE) < CALLBACK_CHANGE_CHANCE) {
+                        callback = callbacks[random.nextInt(callbacks.length)];
+                    } else {
+                        switch (random.nextInt(4)) {
+                            case 0: chunkX++; break;
+                            case 1: chunkX--; break;
+                            case 2: chunkZ++; break;
+                            default: chunkZ--; break;
+                        }
+                    }
+                    int chunkBaseWorldX = chunkX * chunkWidth, chunkBaseWorldZ = chunkZ * chunkHeight;
+
+                    // The points the window hands the blender, against the plain gatherer's.
+                    windowPoints.clear();
+                    windowGatherer.gatherPointsFromChunkBase(seed, chunkBaseWorldX, chunkBaseWorldZ, callback, windowPoints);
+                    expectedPoints.clear();
+                    chunkGatherer.gatherPointsFromChunkBase(seed, chunkBaseWorldX, chunkBaseWorldZ, expectedPoints);
+                    expectedKeys.clear();
+                    for (int p = 0; p < expectedPoints.size(); p++) {
+                        expectedKeys.put(expectedPoints.getLatticeKeys()[p], p);
+                    }
+                    if (windowPoints.size() != expectedPoints.size()) configKeyMismatches++;
+                    for (int p = 0; p < windowPoints.size(); p++) {
+                        if (!expectedKeys.containsKey(windowPoints.getLatticeKeys()[p])) configKeyMismatches++;
+                        if (windowPoints.getBiomeSlots()[p] != callback.getBiomeAt(windowPoints.getXs()[p], windowPoints.getZs()[p])) {
+                            configBiomeMismatches++;
+                        }
+                    }
+
+                    // The blend through the window, moving it again, against the plain blend.
+                    blender.getBlendForChunk(seed, chunkBaseWorldX, chunkBaseWorldZ, callback, windowGatherer, windowResult);
+                    blender.getBlendForChunk(seed, chunkBaseWorldX, chunkBaseWorldZ, callback, expectedResult);
+                    configMaxWeightDifference = Math.max(configMaxWeightDifference,
+                            getMaxWeightDifference(windowResult, expectedResult, chunkWidth * chunkHeight));
+                }
+
+                System.out.println("Frequency " + settings[0] + ", padding " + settings[1] + ", chunk " + chunkWidth + "x" + chunkHeight
+                        + ": " + configKeyMismatches + " key mismatches, " + configBiomeMismatches + " biome mismatches, max weight difference "
+                        + configMaxWeightDifference);
+                steps += STEP_COUNT;
+                keyMismatches += configKeyMismatches;
+                biomeMismatches += configBiomeMismatches;
+                maxWeightDifference = Math.max(maxWeightDifference, configMaxWeightDifference);
+            }
+        }
+
+        System.out.println("Checked " + steps + " steps. Mismatches: " + keyMismatches + " (keys), " + biomeMismatches
+                + " (biomes). Max weight difference: " + maxWeightDifference + ". Tolerance: " + WEIGHT_TOLERANCE);
+        if (keyMismatches > 0 || biomeMismatches > 0 || !(maxWeightDifference <= WEIGHT_TOLERANCE)) {
+            System.out.println("FAILED");
+            System.exit(1);
+        }
+    }
+
+    // A biome missing from either result counts as all of its weight.
+    private static double getMaxWeightDifference(ChunkBlendResult result, ChunkBlendResult expected, int columnCount) {
+        double maxDifference = 0;
+        for (int slot = 0; slot < expected.getBiomeCount(); slot++) {
+            int resultSlot = result.getSlotForBiome(expected.getBiome(slot));
+            for (int column = 0; column < columnCount; column++) {
+                double weight = resultSlot < 0 ? 0 : result.getWeight(resultSlot, column);
+                maxDifference = Math.max(maxDifference, Math.abs(weight - expected.getWeight(slot, column)));
+            }
+        }
+        for (int slot = 0; slot < result.getBiomeCount(); slot++) {
+            if (expected.getSlotForBiome(result.getBiome(slot)) < 0) maxDifference = Math.max(maxDifference, 1);
+        }
+        return maxDifference;
+    }
+}
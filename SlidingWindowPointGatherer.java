@@ -0,0 +1,60 @@
+// Gathers points for chunk after chunk, remembering the biomes of the points it found for the last few,
+// so a walk over neighbouring chunks (a scanline or spiral) only evaluates most points' biomes once.
+// Points are gathered the same way ScatteredBiomeBlender's own gatherer does, in the same order, so blends through this
+// match getBlendForChunk exactly. Gathering points is already cheap. Biomes are what neighbouring chunks can share.
+// The biomes live in a LatticeBiomeCache with room for a few chunks' worth of points, and are dropped when the seed
+// or the callback instance changes. Wrapping the callback in a larger LatticeBiomeCache yourself also keeps the
+// previous row's biomes, which suits long scanlines better.
+// Not thread-safe. Use one per thread, e.g. one per generation worker walking its own chunks.
+public class SlidingWindowPointGatherer {
+
+    // How many chunks' worth of points the biome cache has room for.
+    private static final int CACHED_CHUNK_COUNT = 4;
+
+    final double frequency, maxPointContributionRadius;
+    final int chunkWidth, chunkHeight;
+    final LatticeJitter jitter;
+    private final ChunkPointGatherer<Object> chunkGatherer;
+    private final int biomeCacheCapacity;
+
+    private LatticeBiomeCache biomeCache;
+    private ScatteredBiomeBlender.BiomeEvaluationCallback biomeCacheCallback;
+    private long biomeCacheSeed;
+
+    public SlidingWindowPointGatherer(double frequency, double maxPointContributionRadius, int chunkWidth, int chunkHeight) {
+        this(frequency, maxPointContributionRadius, chunkWidth, chunkHeight, LatticeJitter.DEFAULT);
+    }
+
+    public SlidingWindowPointGatherer(double frequency, double maxPointContributionRadius, int chunkWidth, int chunkHeight,
+            LatticeJitter jitter) {
+        this.frequency = frequency;
+        this.maxPointContributionRadius = maxPointContributionRadius;
+        this.chunkWidth = chunkWidth;
+        this.chunkHeight = chunkHeight;
+        this.jitter = jitter;
+        this.chunkGatherer = new ChunkPointGatherer<Object>(frequency, maxPointContributionRadius, chunkWidth, chunkHeight, jitter);
+
+        // Each lattice point covers sqrt(3) / 3 square grid units, and a grid unit is 1 / frequency across.
+        double rangeWidth = chunkWidth - 1 + 2 * maxPointContributionRadius;
+        double rangeHeight = chunkHeight - 1 + 2 * maxPointContributionRadius;
+        int pointsPerChunk = (int)Math.ceil(rangeWidth * rangeHeight * frequency * frequency * Math.sqrt(3));
+        this.biomeCacheCapacity = Math.max(1, pointsPerChunk * CACHED_CHUNK_COUNT);
+    }
+
+    // The chunk's points, into a buffer, with each point's biome in its biome slot.
+    void gatherPointsFromChunkBase(long seed, int chunkBaseWorldX, int chunkBaseWorldZ,
+            ScatteredBiomeBlender.BiomeEvaluationCallback callback, PointBuffer pointsOut) {
+        chunkGatherer.gatherPointsFromChunkBase(seed, chunkBaseWorldX, chunkBaseWorldZ, pointsOut);
+
+        // Lattice keys are the same for every seed, so a new seed needs a clean cache too.
+        if (biomeCache == null || biomeCacheCallback != callback) {
+            biomeCache = new LatticeBiomeCache(callback, biomeCacheCapacity);
+            biomeCacheCallback = callback;
+            biomeCacheSeed = seed;
+        } else if (biomeCacheSeed != seed) {
+            biomeCache.clear();
+            biomeCacheSeed = seed;
+        }
+        ScatteredBiomeBlender.evaluateBiomes(biomeCache, null, pointsOut, pointsOut.getBiomeSlots());
+    }
+}
@@ -0,0 +1,89 @@
+// Caller-owned, reusable output holding just the strongest few biomes in each column, renormalized to add up to 1.
+// Entries are packed per column, strongest first, as [column * getEntriesPerColumn() + rank].
+// Entries per column is the lesser of the requested maximum and the number of biomes in range of the chunk,
+// so some entries can have zero weight. Biomes with equal weight keep the order they were found in.
+public class TopBiomesBlendResult {
+    private final int maxBiomesPerColumn;
+    private int columnCount;
+    private int entriesPerColumn;
+    private int[] biomes = new int[0];
+    private double[] weights = new double[0];
+
+    public TopBiomesBlendResult(int maxBiomesPerColumn) {
+        if (maxBiomesPerColumn < 1) throw new IllegalArgumentException("Need at least one biome per column, was " + maxBiomesPerColumn);
+        this.maxBiomesPerColumn = maxBiomesPerColumn;
+    }
+
+    public int getMaxBiomesPerColumn() {
+        return maxBiomesPerColumn;
+    }
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    public int getEntriesPerColumn() {
+        return entriesPerColumn;
+    }
+
+    public int getBiome(int column, int rank) {
+        return biomes[column * entriesPerColumn + rank];
+    }
+
+    public double getWeight(int column, int rank) {
+        return weights[column * entriesPerColumn + rank];
+    }
+
+    // Only the first getColumnCount() * getEntriesPerColumn() entries are valid.
+    public int[] getBiomes() {
+        return biomes;
+    }
+
+    // Only the first getColumnCount() * getEntriesPerColumn() entries are valid.
+    public double[] getWeights() {
+        return weights;
+    }
+
+    // Sizes the result for a chunk with this many biomes in range. Every column then needs a selectColumn call.
+    void reset(int columnCount, int biomeCount) {
+        this.columnCount = columnCount;
+        this.entriesPerColumn = Math.min(maxBiomesPerColumn, biomeCount);
+        int length = columnCount * entriesPerColumn;
+        if (biomes.length < length) {
+            biomes = new int[length];
+            weights = new double[length];
+        }
+    }
+
+    // Keeps the strongest of one column's blended weights, slot s's being slotWeights[offset + s * stride],
+    // with slotBiomes mapping slots to biomes. Slots are taken in order, so that's the order equal weights keep.
+    void selectColumn(int column, double[] slotWeights, int offset, int stride, int[] slotBiomes, int biomeCount) {
+        int start = column * entriesPerColumn;
+
+        // Insertion into a short sorted list. Only a strictly greater weight moves up past an entry.
+        int filled = 0;
+        for (int slot = 0; slot < biomeCount; slot++) {
+            double weight = slotWeights[offset + slot * stride];
+            if (filled == entriesPerColumn && weight <= weights[start + filled - 1]) continue;
+
+            int rank = filled < entriesPerColumn ? filled++ : filled - 1;
+            while (rank > 0 && weights[start + rank - 1] < weight) {
+                weights[start + rank] = weights[start + rank - 1];
+                biomes[start + rank] = biomes[start + rank - 1];
+                rank--;
+            }
+            weights[start + rank] = weight;
+            biomes[start + rank] = slotBiomes[slot];
+        }
+
+        // Renormalize what's left, so the kept weights add up to 1.
+        double totalWeight = 0;
+        for (int rank = 0; rank < entriesPerColumn; rank++) {
+            totalWeight += weights[start + rank];
+        }
+        double inverseTotalWeight = 1.0 / totalWeight;
+        for (int rank = 0; rank < entriesPerColumn; rank++) {
+            weights[start + rank] *= inverseTotalWeight;
+        }
+    }
+}
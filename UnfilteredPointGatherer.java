@@ -7,126 +7,60 @@ public class UnfilteredPointGatherer<TTag>
     private static final double SQRT_HALF = Math.sqrt(1.0 / 2.0);
     private static final double TRIANGLE_EDGE_LENGTH = Math.sqrt(2.0 / 3.0);
     private static final double TRIANGLE_HEIGHT = SQRT_HALF;
-    private static final double INVERSE_TRIANGLE_HEIGHT = SQRT_HALF * 2;
-    private static final double TRIANGLE_CIRCUMRADIUS = TRIANGLE_HEIGHT * (2.0 / 3.0);
-    private static final double JITTER_AMOUNT = TRIANGLE_HEIGHT;
+    static final double INVERSE_TRIANGLE_HEIGHT = SQRT_HALF * 2;
+    static final double TRIANGLE_CIRCUMRADIUS = TRIANGLE_HEIGHT * (2.0 / 3.0);
+    
+    // Full jitter, as LatticeJitter's amount of 1.0 gives. The distance is for the default jitter. See LatticeJitter.
+    static final double JITTER_AMOUNT = TRIANGLE_HEIGHT;
     public static final double MAX_GRIDSCALE_DISTANCE_TO_CLOSEST_POINT = JITTER_AMOUNT + TRIANGLE_CIRCUMRADIUS;
     
     // Primes for jitter hash.
-    private static final int PRIME_X = 7691;
-    private static final int PRIME_Z = 30869;
-    
-    // Jitter in JITTER_VECTOR_COUNT_MULTIPLIER*12 directions, symmetric about the hex grid.
-    // cos(t)=sin(t+const) where const=(1/4)*2pi, and N*12 is a multiple of 4, so we can overlap arrays.
-    // Repeat the first in every set of three due to how the pseudo-modulo indexer works.
-    // I started out with the idea of letting JITTER_VECTOR_COUNT_MULTIPLIER_POWER be configurable,
-    // but it may need bit more work to ensure there are enough bits in the selector.
-    private static final int JITTER_VECTOR_COUNT_MULTIPLIER_POWER = 1;
-    private static final int JITTER_VECTOR_COUNT_MULTIPLIER = 1 << JITTER_VECTOR_COUNT_MULTIPLIER_POWER;
-    private static final int N_VECTORS = JITTER_VECTOR_COUNT_MULTIPLIER * 12;
-    private static final int N_VECTORS_WITH_REPETITION = N_VECTORS * 4 / 3;
-    private static final int VECTOR_INDEX_MASK = N_VECTORS_WITH_REPETITION - 1;
-    private static final int JITTER_SINCOS_OFFSET = JITTER_VECTOR_COUNT_MULTIPLIER * 4;
-    private static double[] JITTER_SINCOS;
-    static {
-        final int sinCosArraySize = N_VECTORS_WITH_REPETITION * 5 / 4;
-        final double sinCosOffsetFactor = (1.0 / JITTER_VECTOR_COUNT_MULTIPLIER);
-        JITTER_SINCOS = new double[sinCosArraySize];
-        for (int i = 0, j = 0; i < N_VECTORS; i++) {
-            JITTER_SINCOS[j] = Math.sin((i + sinCosOffsetFactor) * ((2.0 * Math.PI) / N_VECTORS)) * JITTER_AMOUNT;
-            j++;
-
-            // Every time you start a new set, repeat the first entry.
-            // This is because the pseudo-modulo formula,
-            // which aims for an even selection over 24 values,
-            // reallocates the distribution over every four entries
-            // from 25%,25%,25%,25% to a,b,33%,33%, where a+b=33%.
-            // The particular one used here does 0%,33%,33%,33%.
-            if ((j & 3) == 1) {
-                JITTER_SINCOS[j] = JITTER_SINCOS[j - 1];
-                j++;
-            }
-        }
-        for (int j = N_VECTORS_WITH_REPETITION; j < sinCosArraySize; j++) {
-            JITTER_SINCOS[j] = JITTER_SINCOS[j - N_VECTORS_WITH_REPETITION];
-        }
-    }
+    static final int PRIME_X = 7691;
+    static final int PRIME_Z = 30869;
     
     private final double frequency, inverseFrequency;
-    private final LatticePoint[] pointsToSearch;
+    private final LatticeJitter jitter;
+    private final double[] jitterSinCos;
+    private final int vectorIndexMask, jitterSinCosOffset;
+    
+    // Shared with every other gatherer using the same lattice-scale radius and jitter.
+    private final LatticeSearchTable searchTable;
     
     public UnfilteredPointGatherer(double frequency, double maxPointContributionRadius) {
+        this(frequency, maxPointContributionRadius, LatticeJitter.DEFAULT);
+    }
+    
+    public UnfilteredPointGatherer(double frequency, double maxPointContributionRadius, LatticeJitter jitter) {
+        this(frequency, maxPointContributionRadius, jitter, true);
+    }
+    
+    // Without interning, the search table is only kept as long as this gatherer.
+    UnfilteredPointGatherer(double frequency, double maxPointContributionRadius, LatticeJitter jitter, boolean internSearchTable) {
         this.frequency = frequency;
         this.inverseFrequency = 1.0 / frequency;
-        
-        // How far out in the jittered hex grid we need to look for points.
-        // Assumes the jitter can go any angle, which should only very occasionally
-        // cause us to search one more layer out than we need.
-        double maxContributingDistance = maxPointContributionRadius * frequency
-                + MAX_GRIDSCALE_DISTANCE_TO_CLOSEST_POINT;
-        double maxContributingDistanceSq = maxContributingDistance * maxContributingDistance;
-        double latticeSearchRadius = maxContributingDistance * INVERSE_TRIANGLE_HEIGHT;
-        
-        // Start at the central point, and keep traversing bigger hexagonal layers outward.
-        // Exclude almost all points which can't possibly be jittered into range.
-        // The "almost" is again because we assume any jitter angle is possible,
-        // when in fact we only use a small set of uniformly distributed angles.
-        ArrayList<LatticePoint> pointsToSearchList = new ArrayList<>();
-        pointsToSearchList.add(new LatticePoint(0, 0));
-        for (int i = 1; i < latticeSearchRadius; i++) {
-            int xsv = i;
-            int zsv = 0;
-
-            while (zsv < i) {
-                LatticePoint point = new LatticePoint(xsv, zsv);
-                if (point.xv * point.xv + point.zv * point.zv < maxContributingDistanceSq)
-                    pointsToSearchList.add(point);
-                zsv++;
-            }
-
-            while (xsv > 0) {
-                LatticePoint point = new LatticePoint(xsv, zsv);
-                if (point.xv * point.xv + point.zv * point.zv < maxContributingDistanceSq)
-                    pointsToSearchList.add(point);
-                xsv--;
-            }
-
-            while (xsv > -i) {
-                LatticePoint point = new LatticePoint(xsv, zsv);
-                if (point.xv * point.xv + point.zv * point.zv < maxContributingDistanceSq)
-                    pointsToSearchList.add(point);
-                xsv--;
-                zsv--;
-            }
-
-            while (zsv > -i) {
-                LatticePoint point = new LatticePoint(xsv, zsv);
-                if (point.xv * point.xv + point.zv * point.zv < maxContributingDistanceSq)
-                    pointsToSearchList.add(point);
-                zsv--;
-            }
-
-            while (xsv < 0) {
-                LatticePoint point = new LatticePoint(xsv, zsv);
-                if (point.xv * point.xv + point.zv * point.zv < maxContributingDistanceSq)
-                    pointsToSearchList.add(point);
-                xsv++;
-            }
-
-            while (zsv < 0) {
-                LatticePoint point = new LatticePoint(xsv, zsv);
-                if (point.xv * point.xv + point.zv * point.zv < maxContributingDistanceSq)
-                    pointsToSearchList.add(point);
-                xsv++;
-                zsv++;
-            }
-        }
-        
-        pointsToSearch = pointsToSearchList.toArray(new LatticePoint[0]);
+        this.jitter = jitter;
+        this.jitterSinCos = jitter.sinCos;
+        this.vectorIndexMask = jitter.vectorIndexMask;
+        this.jitterSinCosOffset = jitter.sinCosOffset;
+        this.searchTable = internSearchTable
+                ? LatticeSearchTable.get(maxPointContributionRadius * frequency, jitter)
+                : LatticeSearchTable.build(maxPointContributionRadius * frequency, jitter);
     }
     
     public List<GatheredPoint<TTag>> getPoints(long seed, double x, double z) {
-        x *= frequency; z *= frequency;
+        ArrayList<GatheredPoint<TTag>> worldPointsList = new ArrayList<>(searchTable.sectorStarts[1]);
+        gatherPoints(seed, x, z, null, (double pointX, double pointZ, int hash) ->
+                worldPointsList.add(new GatheredPoint<TTag>(pointX, pointZ, hash)));
+        return worldPointsList;
+    }
+    
+    public void gatherPoints(long seed, double x, double z, PointConsumer consumer) {
+        gatherPoints(seed, x, z, null, consumer);
+    }
+    
+    // Passes each point that the filter accepts (or every point, if the filter is null) to the consumer, in lattice search order.
+    public void gatherPoints(long seed, double queryX, double queryZ, PointFilter filter, PointConsumer consumer) {
+        double x = queryX * frequency, z = queryZ * frequency;
         
         // Simplex 2D Skew.
         double s = (x + z) * 0.366025403784439;
@@ -157,9 +91,19 @@ public class UnfilteredPointGatherer<TTag>
             }
         }
 
-        // Pre-multiply for hash.
+        // Which kite of the closest vertex's hexagon the query is in picks the part of the table to search.
+        // The lines to the neighbours are where the skewed offsets, or their difference, change sign.
+        LatticeSearchTable table = searchTable;
+        int sector = LatticeSearchTable.getSectorIndex(xs - xsb, zs - zsb);
+        int searchStart = table.sectorStarts[sector], searchEnd = table.sectorStarts[sector + 1];
+        int[] pointXsvs = table.xsvs, pointZsvs = table.zsvs;
+        int[] pointXsvps = table.xsvps, pointZsvps = table.zsvps;
+        double[] pointXvs = table.xvs, pointZvs = table.zvs;
+
+        // Pre-multiply for hash, and split the seed into the halves it mixes in.
         int xsbp = xsb * PRIME_X;
         int zsbp = zsb * PRIME_Z;
+        int seedLow = (int)seed, seedHigh = (int)(seed >> 32);
         
         // Unskewed coordinate of the closest triangle lattice vertex.
         // Everything will be relative to this.
@@ -167,51 +111,89 @@ public class UnfilteredPointGatherer<TTag>
         double xb = xsb + bt, zb = zsb + bt;
         
         // Loop through pregenerated array of all points which could be in range, relative to the closest.
-        ArrayList<GatheredPoint<TTag>> worldPointsList = new ArrayList<>(pointsToSearch.length);
-        for (int i = 0; i < pointsToSearch.length; i++) {
-            LatticePoint point = pointsToSearch[i];
+        for (int i = searchStart; i < searchEnd; i++) {
             
             // Prime multiplications for jitter hash
-            int xsvp = xsbp + point.xsvp;
-            int zsvp = zsbp + point.zsvp;
+            int xsvp = xsbp + pointXsvps[i];
+            int zsvp = zsbp + pointZsvps[i];
             
             // Compute the jitter hash
             int hash = xsvp ^ zsvp;
-            hash = (((int)(seed & 0xFFFFFFFFL) ^ hash) * 668908897)
-                    ^ (((int)(seed >> 32) ^ hash) * 35311);
+            hash = ((seedLow ^ hash) * 668908897) ^ ((seedHigh ^ hash) * 35311);
             
-            // Even selection within 0-24, using pseudo-modulo technique.
+            // Even selection over the jitter vectors, using pseudo-modulo technique.
             int indexBase = (hash & 0x3FFFFFF) * 0x5555555;
-            int index = (indexBase >> 26) & VECTOR_INDEX_MASK;
+            int index = (indexBase >> 26) & vectorIndexMask;
             int remainingHash = indexBase & 0x3FFFFFF; // The lower bits are still good as a normal hash.
 
             // Jittered point, not yet unscaled for frequency
-            double scaledX = xb + point.xv + JITTER_SINCOS[index];
-            double scaledZ = zb + point.zv + JITTER_SINCOS[index + JITTER_SINCOS_OFFSET];
+            double scaledX = xb + pointXvs[i] + jitterSinCos[index];
+            double scaledZ = zb + pointZvs[i] + jitterSinCos[index + jitterSinCosOffset];
             
-            // Unscale the coordinate and add it to the list.
+            // Unscale the coordinate and pass it on.
             // "Unfiltered" means that, even if the jitter took it out of range, we don't check for that.
             // It's up to the user to handle out-of-range points as if they weren't there.
             // This is so that a user can implement a more limiting check (e.g. confine to a chunk square),
             // without the added overhead of this less limiting check.
-            // A possible alternate implementation of this could employ a callback function,
-            // to avoid adding the points to the list in the first place.
-            GatheredPoint<TTag> worldPoint = new GatheredPoint<TTag>(scaledX * inverseFrequency, scaledZ * inverseFrequency, remainingHash);
-            worldPointsList.add(worldPoint);
+            // Supplying that check as the filter drops the point before the consumer ever sees it.
+            double worldX = scaledX * inverseFrequency;
+            double worldZ = scaledZ * inverseFrequency;
+            if (filter == null || filter.isInRange(worldX, worldZ, queryX, queryZ)) {
+                consumer.accept(worldX, worldZ, remainingHash, getLatticeKey(xsb + pointXsvs[i], zsb + pointZsvs[i]));
+            }
         }
-        
-        return worldPointsList;
     }
+    
+    // Passes every point which could have been jittered into the world rectangle [minX, maxX] by [minZ, maxZ] to the consumer.
+    // Walks the lattice vertices under the rectangle row by row, rather than a search circle, so long thin areas stay cheap.
+    // Like gatherPoints, this is unfiltered: some points will land just outside the rectangle.
+    // The points and lattice keys are the same as gatherPoints finds, though coordinates can differ from its in the last bit.
+    public void gatherPointsInRectangle(long seed, double minX, double minZ, double maxX, double maxZ, PointConsumer consumer) {
+
+        // Vertices further out than the jitter (plus a little for rounding) can't reach the rectangle.
+        double margin = jitter.getGridscaleAmount() + 1.0 / 1024;
+        double x0 = minX * frequency - margin, x1 = maxX * frequency + margin;
+        double z0 = minZ * frequency - margin, z1 = maxZ * frequency + margin;
 
-    private static class LatticePoint {
-        public int xsvp, zsvp;
-        public double xv, zv;
-        public LatticePoint(int xsv, int zsv) {
-            this.xsvp = xsv * PRIME_X;
-            this.zsvp = zsv * PRIME_Z;
-            double t = (xsv + zsv) * -0.211324865405187;
-            this.xv = xsv + t;
-            this.zv = zsv + t;
+        // Skewed, the rectangle is a parallelogram. Each xsv cuts a zsv range out of it, bounded by the unskew
+        // xv = xsv * (1 + g) + zsv * g and zv = zsv * (1 + g) + xsv * g, where g is negative.
+        double g = -0.211324865405187;
+        int seedLow = (int)seed, seedHigh = (int)(seed >> 32);
+        int xsvStart = (int)Math.floor((x0 + z0) * 0.366025403784439 + x0);
+        int xsvEnd = (int)Math.ceil((x1 + z1) * 0.366025403784439 + x1);
+        for (int xsv = xsvStart; xsv <= xsvEnd; xsv++) {
+            double zsvMin = Math.max((x1 - xsv * (1 + g)) / g, (z0 - xsv * g) / (1 + g));
+            double zsvMax = Math.min((x0 - xsv * (1 + g)) / g, (z1 - xsv * g) / (1 + g));
+            int xsvp = xsv * PRIME_X;
+            for (int zsv = (int)Math.ceil(zsvMin); zsv <= zsvMax; zsv++) {
+                int zsvp = zsv * PRIME_Z;
+
+                // Same hash and jitter as gatherPoints.
+                int hash = xsvp ^ zsvp;
+                hash = ((seedLow ^ hash) * 668908897) ^ ((seedHigh ^ hash) * 35311);
+                int indexBase = (hash & 0x3FFFFFF) * 0x5555555;
+                int index = (indexBase >> 26) & vectorIndexMask;
+                int remainingHash = indexBase & 0x3FFFFFF;
+
+                double t = (xsv + zsv) * g;
+                double scaledX = xsv + t + jitterSinCos[index];
+                double scaledZ = zsv + t + jitterSinCos[index + jitterSinCosOffset];
+                consumer.accept(scaledX * inverseFrequency, scaledZ * inverseFrequency, remainingHash, getLatticeKey(xsv, zsv));
+            }
         }
     }
+
+    public LatticeJitter getJitter() {
+        return jitter;
+    }
+    
+    // Identifies a point by its (skewed) lattice vertex. Unlike the jittered position, this doesn't depend on the seed.
+    public static long getLatticeKey(int xsv, int zsv) {
+        return ((long)xsv << 32) | (zsv & 0xFFFFFFFFL);
+    }
+    
+    @FunctionalInterface
+    public static interface PointFilter {
+        boolean isInRange(double pointX, double pointZ, double queryX, double queryZ);
+    }
 }
\ No newline at end of file
@@ -1,6 +1,5 @@
 import java.util.List;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.awt.image.BufferedImage;
 import javax.imageio.ImageIO;
 import java.awt.Color;
@@ -318,13 +317,10 @@ public class VariousBlendsDemo {
 		// I include caching here, to avoid repeated biome evaluation calls.
 		// This is because the entire biome map is pre-generated for free in the other examples,
 		// where they would otherwise need caching to avoid such repetition in an infinite world.
-        // If you use this caching technique in an infinite world, then you would need some way of
-        // regularly clearing out old entries.
-		HashMap<PointXZ, Integer> pointEvaluationCache = new HashMap<>();
-		ScatteredBiomeBlender.BiomeEvaluationCallback cachedCallback = (double x, double z) -> {
-			return (int)pointEvaluationCache.computeIfAbsent(new PointXZ(x, z), (PointXZ point) -> getBiomeAt(point.x, point.z));
-            //return getBiomeAt(x, z);
-		};
+        // The cache is keyed by lattice point and has a fixed capacity, evicting old entries as it goes,
+        // so the same technique holds up in an infinite world.
+		ScatteredBiomeBlender.BiomeEvaluationCallback cachedCallback =
+                new LatticeBiomeCache(VariousBlendsDemo::getBiomeAt, 1 << 16);
 		
         ScatteredBiomeBlender blender = new ScatteredBiomeBlender(GRID_EQUIVALENT_FREQUENCY, BLEND_RADIUS_PADDING, CHUNK_WIDTH);
         for (int zc = 0; zc < HEIGHT; zc += CHUNK_WIDTH) {
@@ -356,21 +352,6 @@ public class VariousBlendsDemo {
         return justPadding ? blendRadiusPadding : blendRadiusPadding + internalMinBlendRadius;
     }
 	
-	static class PointXZ {
-		public double x, z;
-		public PointXZ(double x, double z) {
-			this.x = x; this.z = z;
-		}
-		public int hashCode() {
-			return Double.hashCode(x) * 7841 + Double.hashCode(z);
-		}
-		public boolean equals(Object obj) {
-			if (!(obj instanceof PointXZ)) return false;
-			PointXZ other = (PointXZ) obj;
-			return (other.x == this.x && other.z == this.z);
-		}
-	}
-	
 	/*
 	 * Simple Blending
 	 */
@@ -0,0 +1,76 @@
+import java.util.Random;
+
+// Checks that the Vector API kernel gives the same weights as the scalar one, for rows of every length up to a few
+// vector widths, with and without the tail, in both precisions. Exits with status 1 on any difference.
+// The vector kernel has to be compiled in and enabled for there to be anything to compare. See the README.
+public class VectorKernelParityCheck {
+
+    // The vector kernel does the same operations as the scalar one, in the same order, with no fused multiply-add.
+    private static final double TOLERANCE = 0;
+
+    private static final int ROW_COUNT = 200000;
+    private static final int MAX_ROW_LENGTH = 80;
+    private static final int SEED = 1234;
+
+    public static void main(String[] args) {
+        BlendKernel vectorKernel = BlendKernel.loadPreferred();
+        if (vectorKernel instanceof ScalarBlendKernel) {
+            System.out.println("Vector kernel not available, nothing to compare. Compile vector/ and run with --add-modules jdk.incubator.vector.");
+            return;
+        }
+        BlendKernel scalarKernel = new ScalarBlendKernel();
+
+        Random random = new Random(SEED);
+        double maxDifference = 0;
+        float maxFloatDifference = 0;
+        double[] weights = new double[MAX_ROW_LENGTH + 8], totals = new double[MAX_ROW_LENGTH + 8];
+        double[] expectedWeights = new double[weights.length], expectedTotals = new double[totals.length];
+        float[] floatWeights = new float[weights.length], floatTotals = new float[totals.length];
+        float[] expectedFloatWeights = new float[weights.length], expectedFloatTotals = new float[totals.length];
+        for (int row = 0; row < ROW_COUNT; row++) {
+            int count = random.nextInt(MAX_ROW_LENGTH + 1);
+            int offset = random.nextInt(8);
+            double blendRadius = 1 + random.nextDouble() * 64;
+            double blendRadiusSq = blendRadius * blendRadius;
+            double dz = (random.nextDouble() * 2 - 1) * blendRadius;
+
+            // World coordinates for the double version, which can be far from the origin.
+            double startX = random.nextInt(2000000) - 1000000;
+            double pointX = startX + (random.nextDouble() * 2 - 1) * (count + blendRadius);
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] = expectedWeights[i] = random.nextDouble();
+                totals[i] = expectedTotals[i] = random.nextDouble();
+            }
+            scalarKernel.accumulateRow(expectedWeights, offset, expectedTotals, offset, count, startX, pointX, dz * dz, blendRadiusSq);
+            vectorKernel.accumulateRow(weights, offset, totals, offset, count, startX, pointX, dz * dz, blendRadiusSq);
+            for (int i = 0; i < weights.length; i++) {
+                maxDifference = Math.max(maxDifference, Math.abs(weights[i] - expectedWeights[i]));
+                maxDifference = Math.max(maxDifference, Math.abs(totals[i] - expectedTotals[i]));
+            }
+
+            // Coordinates relative to the chunk for the float version.
+            float floatStartX = random.nextInt(64);
+            float floatPointX = (float)(floatStartX + (random.nextDouble() * 2 - 1) * (count + blendRadius));
+            for (int i = 0; i < floatWeights.length; i++) {
+                floatWeights[i] = expectedFloatWeights[i] = random.nextFloat();
+                floatTotals[i] = expectedFloatTotals[i] = random.nextFloat();
+            }
+            float floatDzSq = (float)(dz * dz), floatBlendRadiusSq = (float)blendRadiusSq;
+            scalarKernel.accumulateRow(expectedFloatWeights, offset, expectedFloatTotals, offset, count,
+                    floatStartX, floatPointX, floatDzSq, floatBlendRadiusSq);
+            vectorKernel.accumulateRow(floatWeights, offset, floatTotals, offset, count,
+                    floatStartX, floatPointX, floatDzSq, floatBlendRadiusSq);
+            for (int i = 0; i < floatWeights.length; i++) {
+                maxFloatDifference = Math.max(maxFloatDifference, Math.abs(floatWeights[i] - expectedFloatWeights[i]));
+                maxFloatDifference = Math.max(maxFloatDifference, Math.abs(floatTotals[i] - expectedFloatTotals[i]));
+            }
+        }
+
+        System.out.println("Compared " + ROW_COUNT + " rows with " + vectorKernel.getClass().getSimpleName()
+                + ". Max difference: " + maxDifference + " (double), " + maxFloatDifference + " (float). Tolerance: " + TOLERANCE);
+        if (maxDifference > TOLERANCE || maxFloatDifference > TOLERANCE) {
+            System.out.println("FAILED");
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+// Evaluates as many columns per instruction as the CPU's preferred vector width allows.
+// Needs --add-modules jdk.incubator.vector to compile and to run, so it lives in its own directory,
+// compiled after the rest of the tree. See the README. When it isn't compiled in, or the module isn't added at runtime,
+// BlendKernel.loadPreferred() falls back to the scalar kernel.
+// Lane arithmetic follows the scalar kernel operation for operation, with no fused multiply-add,
+// so both kernels produce the same weights. The parity tolerance is zero.
+class VectorBlendKernel implements BlendKernel {
+    
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Float> FLOAT_SPECIES = FloatVector.SPECIES_PREFERRED;
+    private static final double[] LANE_OFFSETS = new double[SPECIES.length()];
+    private static final float[] FLOAT_LANE_OFFSETS = new float[FLOAT_SPECIES.length()];
+    static {
+        for (int i = 0; i < LANE_OFFSETS.length; i++) {
+            LANE_OFFSETS[i] = i;
+        }
+        for (int i = 0; i < FLOAT_LANE_OFFSETS.length; i++) {
+            FLOAT_LANE_OFFSETS[i] = i;
+        }
+    }
+    
+    private final ScalarBlendKernel tailKernel = new ScalarBlendKernel();
+    
+    @Override
+    public void accumulateRow(double[] weights, int weightsIndex, double[] columnTotalWeights, int columnIndex, int count,
+            double startX, double pointX, double dzSq, double blendRadiusSq) {
+        DoubleVector laneOffsets = DoubleVector.fromArray(SPECIES, LANE_OFFSETS, 0);
+        DoubleVector radiusSq = DoubleVector.broadcast(SPECIES, blendRadiusSq);
+        
+        int k = 0;
+        int loopBound = SPECIES.loopBound(count);
+        for (; k < loopBound; k += SPECIES.length()) {
+            
+            // Column coordinates are whole numbers, so adding the lane offsets first is exact.
+            DoubleVector dx = laneOffsets.add(startX + k).sub(pointX);
+            DoubleVector distSq = dx.mul(dx).add(dzSq);
+            
+            VectorMask<Double> inside = distSq.lt(radiusSq);
+            if (!inside.anyTrue()) continue;
+            
+            // Relative weight = [r^2 - (x^2 + z^2)]^2
+            DoubleVector weight = radiusSq.sub(distSq);
+            weight = weight.mul(weight);
+            
+            DoubleVector.fromArray(SPECIES, weights, weightsIndex + k)
+                    .add(weight, inside).intoArray(weights, weightsIndex + k);
+            DoubleVector.fromArray(SPECIES, columnTotalWeights, columnIndex + k)
+                    .add(weight, inside).intoArray(columnTotalWeights, columnIndex + k);
+        }
+        
+        if (k < count) {
+            tailKernel.accumulateRow(weights, weightsIndex + k, columnTotalWeights, columnIndex + k, count - k,
+                    startX + k, pointX, dzSq, blendRadiusSq);
+        }
+    }
+    
+    // Twice the lanes of the double version, at the same vector width.
+    @Override
+    public void accumulateRow(float[] weights, int weightsIndex, float[] columnTotalWeights, int columnIndex, int count,
+            float startX, float pointX, float dzSq, float blendRadiusSq) {
+        FloatVector laneOffsets = FloatVector.fromArray(FLOAT_SPECIES, FLOAT_LANE_OFFSETS, 0);
+        FloatVector radiusSq = FloatVector.broadcast(FLOAT_SPECIES, blendRadiusSq);
+        
+        int k = 0;
+        int loopBound = FLOAT_SPECIES.loopBound(count);
+        for (; k < loopBound; k += FLOAT_SPECIES.length()) {
+            FloatVector dx = laneOffsets.add(startX + k).sub(pointX);
+            FloatVector distSq = dx.mul(dx).add(dzSq);
+            
+            VectorMask<Float> inside = distSq.lt(radiusSq);
+            if (!inside.anyTrue()) continue;
+            
+            FloatVector weight = radiusSq.sub(distSq);
+            weight = weight.mul(weight);
+            
+            FloatVector.fromArray(FLOAT_SPECIES, weights, weightsIndex + k)
+                    .add(weight, inside).intoArray(weights, weightsIndex + k);
+            FloatVector.fromArray(FLOAT_SPECIES, columnTotalWeights, columnIndex + k)
+                    .add(weight, inside).intoArray(columnTotalWeights, columnIndex + k);
+        }
+        
+        if (k < count) {
+            tailKernel.accumulateRow(weights, weightsIndex + k, columnTotalWeights, columnIndex + k, count - k,
+                    startX + k, pointX, dzSq, blendRadiusSq);
+        }
+    }
+}